@@ -0,0 +1,189 @@
+package com.gui;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded write-through cache of book records keyed by the primitive BookID.
+ * <p>
+ * Entries live in a two-way set-associative table: each BookID hashes to one set of
+ * two slots, and inserting into a full set replaces the less recently used slot.
+ * Sets are guarded by striped locks. Entries expire after a TTL so copies issued or
+ * returned by other desks are picked up; writes made through this JVM update the
+ * cache immediately.
+ */
+public class BookCache {
+
+    private static final BookCache SHARED = new BookCache(
+            Integer.getInteger("library.cache.books.capacity", 65_536),
+            Long.getLong("library.cache.books.ttlMs", 30_000L));
+
+    private static final int WAYS = 2;
+    private static final int LOCK_STRIPES = 64;
+
+    public record BookRecord(int bookId, String title, String author, int available, int total) {
+
+        BookRecord withAvailable(int newAvailable) {
+            return new BookRecord(bookId, title, author, Math.max(0, Math.min(newAvailable, total)), total);
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size, int capacity) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, size=%d/%d",
+                    hits, misses, hitRate() * 100, evictions, size, capacity);
+        }
+    }
+
+    private final int setMask;
+    private final long ttlNanos;
+    private final int[] keys;
+    private final BookRecord[] records;
+    private final long[] loadedAt;
+    private final long[] lastUsed;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BookCache(int capacity, long ttlMillis) {
+        int sets = Integer.highestOneBit(Math.max(capacity / WAYS, 1));
+        this.setMask = sets - 1;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.keys = new int[sets * WAYS];
+        this.records = new BookRecord[sets * WAYS];
+        this.loadedAt = new long[sets * WAYS];
+        this.lastUsed = new long[sets * WAYS];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public static BookCache shared() {
+        return SHARED;
+    }
+
+    /** Returns the cached record, or {@code null} if it is absent or expired. */
+    public BookRecord get(int bookId) {
+        int set = setOf(bookId);
+        long now = System.nanoTime();
+        synchronized (lockOf(set)) {
+            int slot = find(set, bookId);
+            if (slot >= 0 && now - loadedAt[slot] < ttlNanos) {
+                lastUsed[slot] = now;
+                hits.increment();
+                return records[slot];
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(BookRecord record) {
+        int set = setOf(record.bookId());
+        long now = System.nanoTime();
+        synchronized (lockOf(set)) {
+            int slot = find(set, record.bookId());
+            if (slot < 0) {
+                slot = victim(set);
+                if (records[slot] != null) {
+                    evictions.increment();
+                }
+            }
+            keys[slot] = record.bookId();
+            records[slot] = record;
+            loadedAt[slot] = now;
+            lastUsed[slot] = now;
+        }
+    }
+
+    /** Applies a committed stock change to the cached record, if there is one. */
+    public void adjustAvailable(int bookId, int change) {
+        int set = setOf(bookId);
+        synchronized (lockOf(set)) {
+            int slot = find(set, bookId);
+            if (slot >= 0) {
+                records[slot] = records[slot].withAvailable(records[slot].available() + change);
+            }
+        }
+    }
+
+    /** Records an availability value just read from the database. */
+    public void setAvailable(int bookId, int available) {
+        int set = setOf(bookId);
+        synchronized (lockOf(set)) {
+            int slot = find(set, bookId);
+            if (slot >= 0) {
+                records[slot] = records[slot].withAvailable(available);
+                loadedAt[slot] = System.nanoTime();
+            }
+        }
+    }
+
+    public void invalidate(int bookId) {
+        int set = setOf(bookId);
+        synchronized (lockOf(set)) {
+            int slot = find(set, bookId);
+            if (slot >= 0) {
+                records[slot] = null;
+            }
+        }
+    }
+
+    public CacheStats stats() {
+        int size = 0;
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (lockOf(set)) {
+                for (int way = 0; way < WAYS; way++) {
+                    if (records[set * WAYS + way] != null) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, records.length);
+    }
+
+    private int find(int set, int bookId) {
+        int base = set * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            int slot = base + way;
+            if (records[slot] != null && keys[slot] == bookId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int victim(int set) {
+        int base = set * WAYS;
+        int oldest = base;
+        for (int way = 0; way < WAYS; way++) {
+            int slot = base + way;
+            if (records[slot] == null) {
+                return slot;
+            }
+            if (lastUsed[slot] < lastUsed[oldest]) {
+                oldest = slot;
+            }
+        }
+        return oldest;
+    }
+
+    private int setOf(int bookId) {
+        // Spread sequential IDs across sets
+        int h = bookId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & setMask;
+    }
+
+    private Object lockOf(int set) {
+        return locks[set & (LOCK_STRIPES - 1)];
+    }
+}
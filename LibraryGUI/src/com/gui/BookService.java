@@ -1,213 +1,288 @@
-package com.gui;
-
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-
-public class BookService {
-
-    public void displayBooks() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            ResultSet rs = stmt.executeQuery("SELECT * FROM books");
-            JTable table = new JTable(buildTableModel(rs));
-            JOptionPane.showMessageDialog(null, new JScrollPane(table), "Books List", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public void addBook(String title, String author, int quantity) {
-        if (title == null || title.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Book title cannot be empty.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        if (author == null || author.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Author name cannot be empty.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        if (quantity <= 0) {
-            JOptionPane.showMessageDialog(null, "Quantity must be greater than 0.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        String sql = "INSERT INTO books (Title, Author, Available, Total) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, title.trim());
-            ps.setString(2, author.trim());
-            ps.setInt(3, quantity);
-            ps.setInt(4, quantity);
-            ps.executeUpdate();
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                int bookId = rs.getInt(1);
-                JOptionPane.showMessageDialog(null, "Book added successfully.\nBook ID = " + bookId);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public boolean isBookAvailable(int bookId) {
-        String sql = "SELECT Available FROM books WHERE BookID = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, bookId);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt("Available") > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    public boolean bookExists(int bookId) {
-        String sql = "SELECT COUNT(*) FROM books WHERE BookID = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, bookId);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    public void updateBookAvailability(int bookId, int change) {
-        String sql = "UPDATE books SET Available = Available + ? WHERE BookID = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, change);
-            ps.setInt(2, bookId);
-            ps.executeUpdate();
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public List<Object[]> getOverdueBooks() {
-        List<Object[]> overdueBooks = new ArrayList<>();
-        int finePerDay = 5; // Fine rate per overdue day
-
-        String sql = """
-            SELECT t.TransactionID, b.Title, m.Name, t.IssueDate, t.DueDate,
-                   DATEDIFF(CURDATE(), t.DueDate) as DaysOverdue,t.Fine
-            FROM transactions t
-            JOIN books b ON t.BookID = b.BookID
-            JOIN member m ON t.MemberID = m.MemberID
-            WHERE t.Status = 'ISSUED' AND t.DueDate < CURDATE()
-            ORDER BY t.DueDate ASC
-        """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                int daysOverdue = rs.getInt("DaysOverdue");
-                int fine = daysOverdue * finePerDay;
-
-                Object[] row = {
-                    rs.getInt("TransactionID"),
-                    rs.getString("Title"),
-                    rs.getString("Name"),
-                    rs.getDate("IssueDate"),
-                    rs.getDate("DueDate"),
-                    daysOverdue + " days",
-                    "₹" + fine
-                };
-                overdueBooks.add(row);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-
-        return overdueBooks;
-    }
-    
-    public List<Object[]> getFineTable() {
-        List<Object[]> fineList = new ArrayList<>();
-        int finePerDay = 5;
-
-        String sql = """
-            SELECT t.TransactionID, m.Name AS MemberName, b.Title AS BookTitle,
-                   DATEDIFF(CURDATE(), t.DueDate) AS DaysOverdue
-            FROM transactions t
-            JOIN books b ON t.BookID = b.BookID
-            JOIN member m ON t.MemberID = m.MemberID
-            WHERE t.Status = 'ISSUED' AND t.DueDate < CURDATE()
-        """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                int days = rs.getInt("DaysOverdue");
-                int fine = days * finePerDay;
-                
-                Object[] row = {
-                    rs.getInt("TransactionID"),
-                    rs.getString("MemberName"),
-                    rs.getString("BookTitle"),
-                    days,
-                    "₹" + fine
-                };
-                fineList.add(row);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-
-        return fineList;
-    }
-
-
-    private DefaultTableModel buildTableModel(ResultSet rs) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
-        int columnCount = meta.getColumnCount();
-        DefaultTableModel model = new DefaultTableModel();
-
-        for (int i = 1; i <= columnCount; i++) {
-            model.addColumn(meta.getColumnName(i));
-        }
-
-        while (rs.next()) {
-            Object[] row = new Object[columnCount];
-            for (int i = 1; i <= columnCount; i++) {
-                row[i - 1] = rs.getObject(i);
-            }
-            model.addRow(row);
-        }
-        return model;
-    }
-
-    private void showError(Exception e) {
-        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        e.printStackTrace();
-    }
-}
+package com.gui;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Catalog operations. Instances hold no per-call state and may be shared between
+ * threads; failures are thrown as {@link LibraryException}.
+ */
+public class BookService {
+
+    private static final Metrics.Operation ADD_BOOK = Metrics.shared().operation("addBook");
+    private static final Metrics.Operation SEARCH_BOOKS = Metrics.shared().operation("searchBooks");
+    private static final Metrics.Operation OVERDUE_SNAPSHOT = Metrics.shared().operation("getOverdueSnapshot");
+
+    private final BookCache bookCache = BookCache.shared();
+    private final CatalogSearchIndex searchIndex = CatalogSearchIndex.shared();
+    private final LibraryStats stats = LibraryStats.shared();
+
+    public PagedTableModel createBooksModel() {
+        return new PagedTableModel("books", "BookID",
+            new PagedTableModel.Column("BookID", "BookID"),
+            new PagedTableModel.Column("Title", "Title"),
+            new PagedTableModel.Column("Author", "Author"),
+            new PagedTableModel.Column("Available", "Available"),
+            new PagedTableModel.Column("Total", "Total"));
+    }
+
+    /** Adds a title with {@code quantity} copies and returns its BookID. */
+    public int addBook(String title, String author, int quantity) {
+        String error = validateBook(title, author, quantity);
+        if (error != null) {
+            throw LibraryException.invalid(error);
+        }
+
+        String sql = "INSERT INTO books (Title, Author, Available, Total) VALUES (?, ?, ?, ?)";
+        Metrics.Timer timer = ADD_BOOK.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setString(1, title.trim());
+            ps.setString(2, author.trim());
+            ps.setInt(3, quantity);
+            ps.setInt(4, quantity);
+            ps.executeUpdate();
+            ResultSet rs = ps.getGeneratedKeys();
+            if (!rs.next()) {
+                throw new SQLException("No book ID generated");
+            }
+            int bookId = rs.getInt(1);
+            bookCache.put(new BookCache.BookRecord(bookId, title.trim(), author.trim(), quantity, quantity));
+            searchIndex.add(bookId, title.trim(), author.trim());
+            stats.bookAdded(quantity);
+            return bookId;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("add book", e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /** Returns why a book cannot be added, or {@code null} if it is valid. */
+    static String validateBook(String title, String author, int quantity) {
+        if (title == null || title.trim().isEmpty()) {
+            return "Book title cannot be empty.";
+        }
+        if (author == null || author.trim().isEmpty()) {
+            return "Author name cannot be empty.";
+        }
+        if (quantity <= 0) {
+            return "Quantity must be greater than 0.";
+        }
+        return null;
+    }
+
+    public boolean isBookAvailable(int bookId) {
+        BookCache.BookRecord book = getBook(bookId);
+        return book != null && book.available() > 0;
+    }
+
+    public boolean bookExists(int bookId) {
+        return getBook(bookId) != null;
+    }
+
+    /** Returns the book from the catalog cache, reading it from the database on a miss; null if there is none. */
+    public BookCache.BookRecord getBook(int bookId) {
+        BookCache.BookRecord cached = bookCache.get(bookId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String sql = "SELECT BookID, Title, Author, Available, Total FROM books WHERE BookID = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, bookId);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            BookCache.BookRecord book = new BookCache.BookRecord(rs.getInt("BookID"), rs.getString("Title"),
+                    rs.getString("Author"), rs.getInt("Available"), rs.getInt("Total"));
+            bookCache.put(book);
+            return book;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("read book " + bookId, e);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} books matching {@code query}. Once the catalog search index
+     * is built, results come from it, best match first; until then the query is matched with
+     * LIKE against title or author, in BookID order.
+     */
+    public List<BookCache.BookRecord> searchBooks(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw LibraryException.invalid("Search text cannot be empty.");
+        }
+        if (searchIndex.isReady()) {
+            Metrics.Timer timer = SEARCH_BOOKS.start();
+            try {
+                List<Integer> bookIds = new ArrayList<>();
+                for (CatalogSearchIndex.Hit hit : searchIndex.search(query, limit)) {
+                    bookIds.add(hit.bookId());
+                }
+                return getBooks(bookIds);
+            } finally {
+                timer.close();
+            }
+        }
+
+        String pattern = "%" + query.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        String sql = """
+            SELECT BookID, Title, Author, Available, Total FROM books
+            WHERE LOWER(Title) LIKE ? OR LOWER(Author) LIKE ?
+            ORDER BY BookID
+            LIMIT ?
+        """;
+        List<BookCache.BookRecord> books = new ArrayList<>();
+        Metrics.Timer timer = SEARCH_BOOKS.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, pattern);
+            ps.setString(2, pattern);
+            ps.setInt(3, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                books.add(new BookCache.BookRecord(rs.getInt("BookID"), rs.getString("Title"),
+                        rs.getString("Author"), rs.getInt("Available"), rs.getInt("Total")));
+            }
+            return books;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("search books", e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /** Returns the given books in the given order, from the cache where possible and one query for the rest. */
+    private List<BookCache.BookRecord> getBooks(List<Integer> bookIds) {
+        Map<Integer, BookCache.BookRecord> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int bookId : bookIds) {
+            BookCache.BookRecord cached = bookCache.get(bookId);
+            if (cached != null) {
+                found.put(bookId, cached);
+            } else {
+                missing.add(bookId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            String sql = "SELECT BookID, Title, Author, Available, Total FROM books WHERE BookID IN ("
+                    + String.join(",", Collections.nCopies(missing.size(), "?")) + ")";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < missing.size(); i++) {
+                    ps.setInt(i + 1, missing.get(i));
+                }
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    BookCache.BookRecord book = new BookCache.BookRecord(rs.getInt("BookID"), rs.getString("Title"),
+                            rs.getString("Author"), rs.getInt("Available"), rs.getInt("Total"));
+                    bookCache.put(book);
+                    found.put(book.bookId(), book);
+                }
+
+            } catch (SQLException | ClassNotFoundException e) {
+                throw LibraryException.database("search books", e);
+            }
+        }
+
+        List<BookCache.BookRecord> books = new ArrayList<>(bookIds.size());
+        for (int bookId : bookIds) {
+            BookCache.BookRecord book = found.get(bookId);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Adds {@code change} to the available count. Returns false if the book does not exist
+     * or the result would fall outside 0..Total; the check and the update are one statement,
+     * so concurrent callers cannot push the count out of range.
+     */
+    public boolean updateBookAvailability(int bookId, int change) {
+        String sql = "UPDATE books SET Available = Available + ? WHERE BookID = ? AND Available + ? BETWEEN 0 AND Total";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, change);
+            ps.setInt(2, bookId);
+            ps.setInt(3, change);
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+            bookCache.adjustAvailable(bookId, change);
+            return true;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("update availability of book " + bookId, e);
+        }
+    }
+
+    /** Reads every overdue loan with a single join and computes days overdue and fines once. */
+    public OverdueSnapshot getOverdueSnapshot() {
+        OverdueSnapshot.Builder loans = new OverdueSnapshot.Builder();
+        // Rows come in due-date order, so consecutive loans share one assessment
+        FineEngine fines = FineEngine.shared();
+        LocalDate today = LocalDate.now();
+        long todayDay = today.toEpochDay();
+
+        String sql = """
+            SELECT t.TransactionID, b.Title, m.Name, t.IssueDate, t.DueDate
+            FROM transactions t
+            JOIN books b ON t.BookID = b.BookID
+            JOIN member m ON t.MemberID = m.MemberID
+            WHERE t.Status = 'ISSUED' AND t.DueDate < ?
+            ORDER BY t.DueDate ASC, t.TransactionID ASC
+        """;
+
+        Metrics.Timer timer = OVERDUE_SNAPSHOT.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setObject(1, today);
+            ResultSet rs = ps.executeQuery();
+            long bucketDay = Long.MIN_VALUE;
+            FineEngine.Assessment assessment = FineEngine.Assessment.NONE;
+            while (rs.next()) {
+                long dueDay = rs.getObject("DueDate", LocalDate.class).toEpochDay();
+                if (dueDay != bucketDay) {
+                    bucketDay = dueDay;
+                    assessment = fines.assess(todayDay - dueDay);
+                }
+                loans.add(
+                    rs.getInt("TransactionID"),
+                    rs.getString("Title"),
+                    rs.getString("Name"),
+                    rs.getObject("IssueDate", LocalDate.class).toEpochDay(),
+                    dueDay,
+                    (int) assessment.daysOverdue(),
+                    assessment.fine());
+            }
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("load overdue books", e);
+        } finally {
+            timer.close();
+        }
+
+        return loans.build();
+    }
+}
@@ -0,0 +1,264 @@
+package com.gui;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Loads books or members from CSV files. The file is streamed one record at a time,
+ * rows are checked with the same rules as the Add Book / Add Member dialogs, and valid
+ * rows are inserted with JDBC batches committed in chunks. Rejected rows are copied
+ * with their line number and reason to {@code <file>.rejects.csv}.
+ */
+public class BulkImporter {
+
+    public record ImportResult(long rowsRead, long imported, long rejected, long elapsedMillis, Path rejectsFile) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rowsRead : rowsRead * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows read, %d imported, %d rejected in %.1f s (%.0f rows/sec)",
+                    rowsRead, imported, rejected, elapsedMillis / 1000.0, rowsPerSecond());
+        }
+    }
+
+    /** One of the import entry points, so callers can pick books or members. */
+    @FunctionalInterface
+    public interface Import {
+        ImportResult run(Path csv) throws IOException, SQLException, ClassNotFoundException;
+    }
+
+    /** Validates one record and binds it to the insert statement; returns a rejection reason or null. */
+    private interface RowBinder {
+        String bind(Connection conn, PreparedStatement ps, String[] values) throws SQLException;
+
+        /** Called after each executeBatch(); the statement's generated keys belong to that batch. */
+        default void batchExecuted(PreparedStatement ps) throws SQLException {
+        }
+
+        /** Called after each commit. */
+        default void committed() {
+        }
+    }
+
+    private final int batchSize;
+    private final int chunkSize;
+
+    public BulkImporter() {
+        this(Integer.getInteger("library.import.batchSize", 500), Integer.getInteger("library.import.chunkSize", 5_000));
+    }
+
+    public BulkImporter(int batchSize, int chunkSize) {
+        this.batchSize = batchSize;
+        this.chunkSize = Math.max(chunkSize, batchSize);
+    }
+
+    /** Imports a CSV with the header columns Title, Author and Quantity. */
+    public ImportResult importBooks(Path csv) throws IOException, SQLException, ClassNotFoundException {
+        String sql = "INSERT INTO books (Title, Author, Available, Total) VALUES (?, ?, ?, ?)";
+        CatalogSearchIndex searchIndex = CatalogSearchIndex.shared();
+        LibraryStats stats = LibraryStats.shared();
+        // Rows in the current batch (BookID not known yet), then with their BookID until committed
+        record InsertedBook(int bookId, String title, String author, int quantity) {
+        }
+        List<InsertedBook> unsentBooks = new ArrayList<>();
+        List<InsertedBook> uncommittedBooks = new ArrayList<>();
+
+        return importFile(csv, sql, new String[]{"Title", "Author", "Quantity"}, new RowBinder() {
+            @Override
+            public String bind(Connection conn, PreparedStatement ps, String[] values) throws SQLException {
+                int quantity;
+                try {
+                    quantity = Integer.parseInt(values[2].trim());
+                } catch (NumberFormatException e) {
+                    return "Quantity must be a number.";
+                }
+                String error = BookService.validateBook(values[0], values[1], quantity);
+                if (error != null) {
+                    return error;
+                }
+                ps.setString(1, values[0].trim());
+                ps.setString(2, values[1].trim());
+                ps.setInt(3, quantity);
+                ps.setInt(4, quantity);
+                unsentBooks.add(new InsertedBook(0, values[0].trim(), values[1].trim(), quantity));
+                return null;
+            }
+
+            @Override
+            public void batchExecuted(PreparedStatement ps) throws SQLException {
+                ResultSet keys = ps.getGeneratedKeys();
+                for (InsertedBook book : unsentBooks) {
+                    if (!keys.next()) {
+                        break;
+                    }
+                    uncommittedBooks.add(new InsertedBook(keys.getInt(1), book.title(), book.author(), book.quantity()));
+                }
+                unsentBooks.clear();
+            }
+
+            @Override
+            public void committed() {
+                for (InsertedBook book : uncommittedBooks) {
+                    searchIndex.add(book.bookId(), book.title(), book.author());
+                    stats.bookAdded(book.quantity());
+                }
+                uncommittedBooks.clear();
+            }
+        });
+    }
+
+    /** Imports a CSV with the header columns Name, Email and Phone. */
+    public ImportResult importMembers(Path csv) throws IOException, SQLException, ClassNotFoundException {
+        String sql = "INSERT INTO member (Name, Email, Phone, Reg_Date) VALUES (?, ?, ?, ?)";
+        Date today = Date.valueOf(LocalDate.now());
+        // Emails bound since the last executeBatch(); earlier rows are visible to the lookup query
+        Set<String> unsentEmails = new HashSet<>();
+
+        return importFile(csv, sql, new String[]{"Name", "Email", "Phone"}, new RowBinder() {
+            @Override
+            public String bind(Connection conn, PreparedStatement ps, String[] values) throws SQLException {
+                String error = MemberService.validateMember(values[0], values[1], values[2]);
+                if (error != null) {
+                    return error;
+                }
+                String email = MemberService.normalizeEmail(values[1]);
+                if (unsentEmails.contains(email) || MemberService.emailExists(conn, email)) {
+                    return "Member with this email already exists.";
+                }
+                unsentEmails.add(email);
+                MemberService.recordEmail(email);
+
+                ps.setString(1, values[0].trim());
+                ps.setString(2, email);
+                ps.setString(3, values[2].trim());
+                ps.setDate(4, today);
+                return null;
+            }
+
+            @Override
+            public void batchExecuted(PreparedStatement ps) {
+                unsentEmails.clear();
+            }
+        });
+    }
+
+    private ImportResult importFile(Path csv, String sql, String[] columns, RowBinder binder)
+            throws IOException, SQLException, ClassNotFoundException {
+        long start = System.nanoTime();
+        Path rejectsFile = csv.resolveSibling(csv.getFileName() + ".rejects.csv");
+        long rowsRead = 0;
+        long imported = 0;
+        long rejected = 0;
+        long committedLine = 0;
+
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8));
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            List<String> header = reader.next();
+            int[] index = columnIndexes(header, columns);
+            List<String> rejectsHeader = new ArrayList<>(List.of("Line", "Reason"));
+            rejectsHeader.addAll(header);
+            rejects.write(CsvReader.toLine(rejectsHeader));
+            rejects.newLine();
+
+            conn.setAutoCommit(false);
+            int unsent = 0;
+            int uncommitted = 0;
+            String[] values = new String[columns.length];
+            List<String> record;
+            try {
+                while ((record = reader.next()) != null) {
+                    if (record.size() == 1 && record.get(0).isBlank()) {
+                        continue;
+                    }
+                    rowsRead++;
+                    for (int i = 0; i < columns.length; i++) {
+                        values[i] = index[i] < record.size() ? record.get(index[i]) : "";
+                    }
+
+                    String reason = binder.bind(conn, ps, values);
+                    if (reason != null) {
+                        rejected++;
+                        List<String> line = new ArrayList<>();
+                        line.add(String.valueOf(reader.recordLine()));
+                        line.add(reason);
+                        line.addAll(record);
+                        rejects.write(CsvReader.toLine(line));
+                        rejects.newLine();
+                        continue;
+                    }
+
+                    ps.addBatch();
+                    unsent++;
+                    uncommitted++;
+                    if (unsent == batchSize) {
+                        ps.executeBatch();
+                        binder.batchExecuted(ps);
+                        unsent = 0;
+                    }
+                    if (uncommitted >= chunkSize) {
+                        conn.commit();
+                        binder.committed();
+                        imported += uncommitted;
+                        uncommitted = 0;
+                        committedLine = reader.recordLine();
+                    }
+                }
+                if (unsent > 0) {
+                    ps.executeBatch();
+                    binder.batchExecuted(ps);
+                }
+                conn.commit();
+                binder.committed();
+                imported += uncommitted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Import stopped after line " + committedLine + " with " + imported
+                        + " rows committed: " + e.getMessage(), e);
+            }
+        }
+
+        if (rejected == 0) {
+            Files.deleteIfExists(rejectsFile);
+            rejectsFile = null;
+        }
+        return new ImportResult(rowsRead, imported, rejected, (System.nanoTime() - start) / 1_000_000, rejectsFile);
+    }
+
+    private static int[] columnIndexes(List<String> header, String[] columns) throws IOException {
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : header) {
+            // A UTF-8 byte order mark can only lead the first cell; also tolerate stray spaces
+            if (names.isEmpty() && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            names.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        int[] index = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            index[i] = names.indexOf(columns[i].toLowerCase(Locale.ROOT));
+            if (index[i] < 0) {
+                throw new IOException("Missing column '" + columns[i] + "' in header; expected " + String.join(", ", columns));
+            }
+        }
+        return index;
+    }
+}
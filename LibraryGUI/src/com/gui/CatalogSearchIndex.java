@@ -0,0 +1,558 @@
+package com.gui;
+
+import java.sql.*;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over book titles and authors.
+ * <p>
+ * Text is split into words, case-folded and stripped of accents. Every distinct word
+ * gets a term ID and a posting list of the books that contain it; each book keeps its
+ * own short list of term IDs. A query word matches a term exactly, as a prefix (two or
+ * more letters) or anywhere inside it (three or more letters, found through a trigram
+ * index over the term dictionary). All query words must match. Books are ranked by
+ * match quality, title matches count double, and shorter entries break ties.
+ * <p>
+ * Reads and writes are guarded by a read/write lock; searches run concurrently.
+ * {@link #start()} polls for books other processes have added, such as desks importing
+ * CSV files while this JVM holds the index.
+ */
+public class CatalogSearchIndex {
+
+    private static final Metrics.Operation BUILD = Metrics.shared().operation("searchIndex.build");
+    private static final Metrics.Operation REFRESH = Metrics.shared().operation("searchIndex.refresh");
+    private static final CatalogSearchIndex SHARED = new CatalogSearchIndex();
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+
+    // Candidate levels, best first: {match quality, field}. A title match counts double.
+    private static final int[][] LEVELS = {
+            {EXACT, TITLE}, {PREFIX, TITLE}, {EXACT, AUTHOR}, {INFIX, TITLE}, {PREFIX, AUTHOR}, {INFIX, AUTHOR}};
+
+    public record Hit(int bookId, int score) {
+    }
+
+    public record IndexStats(int books, int terms, long postings, long estimatedBytes, long buildMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%d books, %d terms, %d postings, ~%.1f MB, built in %d ms",
+                    books, terms, postings, estimatedBytes / (1024.0 * 1024.0), buildMillis);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long refreshMillis = Long.getLong("library.search.refreshMs", 10_000);
+    private ScheduledExecutorService refresher;
+
+    // Term dictionary: sorted for prefix ranges; IDs index termText/postings
+    private final TreeMap<String, Integer> termIds = new TreeMap<>();
+    private final List<String> termText = new ArrayList<>();
+    private final List<IntList> postings = new ArrayList<>(); // ordinal << 1 | field, TITLE if in both
+    private final Map<Integer, IntList> trigramTerms = new HashMap<>();
+
+    // Per-book data by ordinal; a replaced or removed book leaves a null terms entry
+    private int[] bookIds = new int[1024];
+    private int[][] bookTerms = new int[1024][];
+    private byte[] bookLengths = new byte[1024]; // word count capped at 255, for ranking ties
+    private int bookCount;
+    private final Map<Integer, Integer> ordinals = new HashMap<>();
+    private int maxBookId;
+
+    private long postingCount;
+    private volatile boolean ready;
+    private volatile long buildMillis;
+
+    public static CatalogSearchIndex shared() {
+        return SHARED;
+    }
+
+    /** True once {@link #build()} has loaded the catalog. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Loads every book from the database, replacing the current contents. Run off the EDT. */
+    public void build() throws SQLException, ClassNotFoundException {
+        long start = System.nanoTime();
+        CatalogSearchIndex fresh = new CatalogSearchIndex();
+        Metrics.Timer timer = BUILD.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            conn.setAutoCommit(false);
+            stmt.setFetchSize(DatabaseConnection.streamingFetchSize(conn, 5_000));
+            ResultSet rs = stmt.executeQuery("SELECT BookID, Title, Author FROM books");
+            while (rs.next()) {
+                fresh.addLocked(rs.getInt(1), rs.getString(2), rs.getString(3));
+            }
+            conn.commit();
+        } finally {
+            timer.close();
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Books added while the scan ran are kept
+            for (Map.Entry<Integer, Integer> entry : ordinals.entrySet()) {
+                if (!fresh.ordinals.containsKey(entry.getKey()) && bookTerms[entry.getValue()] != null) {
+                    fresh.addLocked(entry.getKey(), termsToText(bookTerms[entry.getValue()], TITLE),
+                            termsToText(bookTerms[entry.getValue()], AUTHOR));
+                }
+            }
+            termIds.clear();
+            termIds.putAll(fresh.termIds);
+            termText.clear();
+            termText.addAll(fresh.termText);
+            postings.clear();
+            postings.addAll(fresh.postings);
+            trigramTerms.clear();
+            trigramTerms.putAll(fresh.trigramTerms);
+            bookIds = fresh.bookIds;
+            bookTerms = fresh.bookTerms;
+            bookLengths = fresh.bookLengths;
+            bookCount = fresh.bookCount;
+            ordinals.clear();
+            ordinals.putAll(fresh.ordinals);
+            maxBookId = fresh.maxBookId;
+            postingCount = fresh.postingCount;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        buildMillis = (System.nanoTime() - start) / 1_000_000;
+        ready = true;
+        System.out.println("Catalog search index: " + stats());
+    }
+
+    /**
+     * Indexes books with a BookID above the highest one indexed, then rebuilds if the
+     * catalog and the index still hold a different number of books (an insert that
+     * committed out of ID order, or a deleted book). Returns how many books were added.
+     */
+    public int refresh() throws SQLException, ClassNotFoundException {
+        if (!ready) {
+            return 0;
+        }
+        int after;
+        int indexed;
+        lock.readLock().lock();
+        try {
+            after = maxBookId;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Object[]> added = new ArrayList<>();
+        long total;
+        Metrics.Timer timer = REFRESH.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT BookID, Title, Author FROM books WHERE BookID > ? ORDER BY BookID");
+             Statement count = conn.createStatement()) {
+            ps.setInt(1, after);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                added.add(new Object[] {rs.getInt(1), rs.getString(2), rs.getString(3)});
+            }
+            ResultSet countRs = count.executeQuery("SELECT COUNT(*) FROM books");
+            total = countRs.next() ? countRs.getLong(1) : 0;
+        } finally {
+            timer.close();
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] book : added) {
+                // add() may have indexed it already through this JVM
+                if (!ordinals.containsKey((Integer) book[0])) {
+                    addLocked((Integer) book[0], (String) book[1], (String) book[2]);
+                }
+            }
+            indexed = ordinals.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (indexed != total) {
+            build();
+        }
+        return added.size();
+    }
+
+    /** Refreshes every {@code library.search.refreshMs} on a background thread; {@code 0} turns it off. */
+    public synchronized void start() {
+        if (refresher != null || refreshMillis <= 0) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "search-index-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Catalog search index refresh failed: " + e.getMessage());
+        }
+    }
+
+    /** Adds a book, or re-indexes it if the BookID is already present. */
+    public void add(int bookId, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            addLocked(bookId, title, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(bookId);
+            if (ordinal != null) {
+                bookTerms[ordinal] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns up to {@code limit} matching books, best first. */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            WordMatch[] matches = new WordMatch[words.size()];
+            int rarest = 0;
+            for (int w = 0; w < matches.length; w++) {
+                matches[w] = matchingTerms(words.get(w));
+                if (matches[w].postings == 0) {
+                    return List.of();
+                }
+                if (matches[w].postings < matches[rarest].postings) {
+                    rarest = w;
+                }
+            }
+            int otherWordsBest = 0;
+            for (int w = 0; w < matches.length; w++) {
+                if (w != rarest) {
+                    otherWordsBest += matches[w].bestQuality() * 2;
+                }
+            }
+
+            // Candidates come from the rarest word's postings, best level first, so a book is
+            // first seen at its best match for that word. A level is skipped once it cannot
+            // beat anything already in the top list.
+            WordMatch rare = matches[rarest];
+            PriorityQueue<Long> top = new PriorityQueue<>(limit + 1);
+            long[] seen = new long[(bookCount >>> 6) + 1];
+            for (int[] level : LEVELS) {
+                IntList tier = rare.tiers[level[0]];
+                if (tier == null) {
+                    continue;
+                }
+                int weight = level[1] == TITLE ? level[0] * 2 : level[0];
+                if (top.size() == limit && (int) (top.peek() >>> 48) > weight + otherWordsBest) {
+                    break;
+                }
+                for (int t = 0; t < tier.size; t++) {
+                    IntList list = postings.get(tier.values[t]);
+                    for (int i = 0; i < list.size; i++) {
+                        int posting = list.values[i];
+                        int ordinal = posting >>> 1;
+                        if ((posting & 1) != level[1] || bookTerms[ordinal] == null
+                                || (seen[ordinal >>> 6] & 1L << ordinal) != 0) {
+                            continue;
+                        }
+                        seen[ordinal >>> 6] |= 1L << ordinal;
+                        int score = weight;
+                        if (matches.length > 1) {
+                            int others = scoreOthers(bookTerms[ordinal], matches, rarest);
+                            if (others == 0) {
+                                continue;
+                            }
+                            score += others;
+                        }
+                        long key = rankKey(score, bookLengths[ordinal] & 0xFF, bookIds[ordinal]);
+                        if (top.size() < limit) {
+                            top.add(key);
+                        } else if (key > top.peek()) {
+                            top.poll();
+                            top.add(key);
+                        }
+                    }
+                }
+            }
+
+            Hit[] hits = new Hit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                long key = top.poll();
+                hits[i] = new Hit(Integer.MAX_VALUE - (int) key, (int) (key >>> 48));
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public IndexStats stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (String term : termText) {
+                // String + byte[] + TreeMap entry + boxed ID
+                bytes += 40 + term.length() + 40 + 16;
+            }
+            for (IntList list : postings) {
+                bytes += 32 + 4L * list.values.length;
+            }
+            for (IntList terms : trigramTerms.values()) {
+                bytes += 32 + 4L * terms.values.length + 48;
+            }
+            for (int i = 0; i < bookCount; i++) {
+                bytes += 4 + 8 + 1 + (bookTerms[i] == null ? 0 : 16 + 4L * bookTerms[i].length);
+            }
+            bytes += ordinals.size() * 48L;
+            return new IndexStats(ordinals.size(), termText.size(), postingCount, bytes, buildMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Splits text into lower-case, accent-free words. */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void addLocked(int bookId, String title, String author) {
+        Integer previous = ordinals.get(bookId);
+        if (previous != null) {
+            bookTerms[previous] = null;
+        }
+        if (bookCount == bookIds.length) {
+            bookIds = Arrays.copyOf(bookIds, bookCount * 2);
+            bookTerms = Arrays.copyOf(bookTerms, bookCount * 2);
+            bookLengths = Arrays.copyOf(bookLengths, bookCount * 2);
+        }
+        int ordinal = bookCount++;
+        ordinals.put(bookId, ordinal);
+        bookIds[ordinal] = bookId;
+        maxBookId = Math.max(maxBookId, bookId);
+
+        // Each entry is termId << 1 | field, in text order
+        List<Integer> entries = new ArrayList<>();
+        for (String word : tokenize(title)) {
+            entries.add(termId(word) << 1 | TITLE);
+        }
+        for (String word : tokenize(author)) {
+            entries.add(termId(word) << 1 | AUTHOR);
+        }
+        int[] terms = new int[entries.size()];
+        Set<Integer> posted = new HashSet<>();
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = entries.get(i);
+            int termId = terms[i] >>> 1;
+            if (posted.add(termId)) {
+                // Title words come first, so a word in both fields is posted as TITLE
+                postings.get(termId).add(ordinal << 1 | terms[i] & 1);
+                postingCount++;
+            }
+        }
+        bookTerms[ordinal] = terms;
+        bookLengths[ordinal] = (byte) Math.min(terms.length, 255);
+    }
+
+    private int termId(String word) {
+        Integer id = termIds.get(word);
+        if (id != null) {
+            return id;
+        }
+        int termId = termText.size();
+        termIds.put(word, termId);
+        termText.add(word);
+        postings.add(new IntList());
+        for (int trigram : trigrams(word)) {
+            trigramTerms.computeIfAbsent(trigram, k -> new IntList()).add(termId);
+        }
+        return termId;
+    }
+
+    /** Terms matching {@code word}, each with its best match quality. */
+    private WordMatch matchingTerms(String word) {
+        WordMatch match = new WordMatch(termText.size());
+        Integer exact = termIds.get(word);
+        if (exact != null) {
+            match.add(exact, EXACT);
+        }
+        if (word.length() >= 2) {
+            for (int termId : termIds.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                match.add(termId, PREFIX);
+            }
+        }
+        if (word.length() >= 3) {
+            IntList candidates = null;
+            for (int trigram : trigrams(word)) {
+                IntList withTrigram = trigramTerms.get(trigram);
+                if (withTrigram == null) {
+                    return match;
+                }
+                if (candidates == null || withTrigram.size < candidates.size) {
+                    candidates = withTrigram;
+                }
+            }
+            for (int i = 0; i < candidates.size; i++) {
+                int termId = candidates.values[i];
+                if (match.quality[termId] == 0 && termText.get(termId).contains(word)) {
+                    match.add(termId, INFIX);
+                }
+            }
+        }
+        for (IntList tier : match.tiers) {
+            for (int i = 0; tier != null && i < tier.size; i++) {
+                match.postings += postings.get(tier.values[i]).size;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Sum over the query words other than {@code skip} of their best match in the book, or
+     * 0 if one of them does not match.
+     */
+    private static int scoreOthers(int[] terms, WordMatch[] matches, int skip) {
+        int total = 0;
+        for (int w = 0; w < matches.length; w++) {
+            if (w == skip) {
+                continue;
+            }
+            byte[] quality = matches[w].quality;
+            int best = 0;
+            for (int entry : terms) {
+                int weight = (entry & 1) == TITLE ? quality[entry >>> 1] * 2 : quality[entry >>> 1];
+                if (weight > best) {
+                    best = weight;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /** Packs a hit so that a larger key ranks higher: score, then fewer words, then lower BookID. */
+    private static long rankKey(int score, int length, int bookId) {
+        return (long) score << 48 | (long) (0xFFFF - Math.min(length, 0xFFFF)) << 32 | (Integer.MAX_VALUE - bookId);
+    }
+
+    /** Distinct hashed trigrams of {@code word}; collisions only widen the candidate set. */
+    private static int[] trigrams(String word) {
+        if (word.length() < 3) {
+            return new int[0];
+        }
+        int[] grams = new int[word.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = word.substring(i, i + 3).hashCode();
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private String termsToText(int[] terms, int field) {
+        StringBuilder text = new StringBuilder();
+        for (int entry : terms) {
+            if ((entry & 1) == field) {
+                text.append(termText.get(entry >>> 1)).append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    /** Match quality per term ID for one query word, plus the matching terms grouped by quality. */
+    private static final class WordMatch {
+        final byte[] quality;
+        final IntList[] tiers = new IntList[EXACT + 1];
+        long postings;
+
+        WordMatch(int termCount) {
+            quality = new byte[termCount];
+        }
+
+        void add(int termId, int matchQuality) {
+            quality[termId] = (byte) matchQuality;
+            if (tiers[matchQuality] == null) {
+                tiers[matchQuality] = new IntList();
+            }
+            tiers[matchQuality].add(termId);
+        }
+
+        int bestQuality() {
+            for (int q = EXACT; q > 0; q--) {
+                if (tiers[q] != null) {
+                    return q;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /** Growable int array; cheaper than a List of boxed Integers for posting lists. */
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
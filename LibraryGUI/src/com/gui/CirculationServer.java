@@ -0,0 +1,368 @@
+package com.gui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP/JSON front end for the circulation services, so desks can share one connection
+ * pool and book cache instead of each opening its own database connections. Every
+ * request runs on its own virtual thread. Endpoints:
+ * <pre>
+ * POST /api/issue        {"memberId":1,"bookId":2}
+ * POST /api/return       {"transactionId":3}
+ * POST /api/issue/batch  {"memberId":1,"bookIds":[2,5,9]}
+ * POST /api/return/batch {"transactionIds":[3,4]}
+ * POST /api/books        {"title":"...","author":"...","quantity":2}
+ * GET  /api/books/search?q=text&amp;limit=20
+ * GET  /api/overdue
+ * GET  /api/stats
+ * GET  /api/health
+ * </pre>
+ * When a token is configured, requests must send {@code Authorization: Bearer <token>}.
+ */
+public class CirculationServer {
+
+    private static final int MAX_REQUEST_BYTES = 64 * 1024;
+    private static final int MAX_SEARCH_RESULTS = 500;
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(HttpExchange exchange) throws IOException;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LibraryApi api;
+    private final byte[] token;
+
+    public CirculationServer(InetSocketAddress address, LibraryApi api, String token) throws IOException {
+        this.api = api;
+        this.token = token == null || token.isEmpty() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+
+        route("POST", "/api/issue", this::issue);
+        route("POST", "/api/return", this::returnBook);
+        route("POST", "/api/issue/batch", this::issueBatch);
+        route("POST", "/api/return/batch", this::returnBatch);
+        route("POST", "/api/books", this::addBook);
+        route("GET", "/api/books/search", this::search);
+        route("GET", "/api/overdue", exchange -> overdue());
+        route("GET", "/api/stats", exchange -> stats());
+        route("GET", "/api/health", exchange -> health());
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                send(exchange, 404, error("NOT_FOUND", "No such endpoint"));
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = System.getProperty("library.server.host", "127.0.0.1");
+        int port = Integer.getInteger("library.server.port", 8085);
+
+        long start = System.nanoTime();
+        DatabaseConnection.warmUp();
+        if (Boolean.parseBoolean(System.getProperty("library.schema.autoMigrate", "true"))) {
+            SchemaManager.migrateAndVerify();
+        }
+        System.out.println("Database ready (" + DatabaseConnection.dialect() + ") in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        try {
+            CatalogSearchIndex.shared().build();
+            CatalogSearchIndex.shared().start();
+        } catch (Exception e) {
+            System.err.println("Catalog search index not built, searching with LIKE: " + e.getMessage());
+        }
+        // The server owns the statistics; desks pointed at it do not run their own
+        LibraryStats.shared().start();
+        Metrics.shared().startReporting();
+
+        CirculationServer server = new CirculationServer(new InetSocketAddress(host, port),
+                new LocalLibraryApi(), System.getProperty("library.server.token"));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            LibraryStats.shared().shutdown();
+            CatalogSearchIndex.shared().shutdown();
+            Metrics.shared().stopReporting();
+        }, "circulation-server-shutdown"));
+        System.out.println("Circulation server listening on http://" + host + ":" + server.port());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests and waits up to {@code delaySeconds} for running ones to finish. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void route(String method, String path, Handler handler) {
+        Metrics.Operation operation = Metrics.shared().operation("http " + method + " " + path);
+        server.createContext(path, exchange -> {
+            Metrics.Timer timer = operation.start();
+            try (exchange) {
+                dispatch(exchange, method, path, handler);
+            } finally {
+                timer.close();
+            }
+        });
+    }
+
+    private void dispatch(HttpExchange exchange, String method, String path, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                send(exchange, 404, error("NOT_FOUND", "No such endpoint"));
+            } else if (!authorized(exchange)) {
+                send(exchange, 401, error("UNAUTHORIZED", "Missing or wrong bearer token"));
+            } else if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                send(exchange, 405, error("METHOD_NOT_ALLOWED", "Use " + method));
+            } else {
+                send(exchange, 200, handler.handle(exchange));
+            }
+        } catch (LibraryException e) {
+            int status = switch (e.reason()) {
+                case INVALID_INPUT -> 400;
+                case DUPLICATE -> 409;
+                case DATABASE -> 503;
+            };
+            if (e.reason() == LibraryException.Reason.DATABASE) {
+                e.printStackTrace();
+            }
+            send(exchange, status, error(e.reason().name(), e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error("BAD_REQUEST", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            send(exchange, 500, error("INTERNAL_ERROR", e.getMessage()));
+        }
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        if (token == null) {
+            return true;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object issue(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        return toJson(api.issueBook(intField(body, "memberId"), intField(body, "bookId")));
+    }
+
+    private Object returnBook(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        return toJson(api.returnBook(intField(body, "transactionId")));
+    }
+
+    private Object issueBatch(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        List<Map<String, Object>> items = new ArrayList<>();
+        api.issueBooks(intField(body, "memberId"), intList(body, "bookIds")).forEach((bookId, result) -> {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("bookId", bookId);
+            json.putAll(toJson(result));
+            items.add(json);
+        });
+        return items;
+    }
+
+    private Object returnBatch(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        List<Map<String, Object>> items = new ArrayList<>();
+        api.returnBooks(intList(body, "transactionIds")).forEach((transactionId, result) -> {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("transactionId", transactionId);
+            json.putAll(toJson(result));
+            items.add(json);
+        });
+        return items;
+    }
+
+    private Object addBook(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        int bookId = api.addBook(stringField(body, "title"), stringField(body, "author"), intField(body, "quantity"));
+        return Map.of("bookId", bookId);
+    }
+
+    private static Map<String, Object> toJson(IssueResult result) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", result.status().name());
+        json.put("transactionId", result.transactionId());
+        json.put("dueDate", result.dueDate());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(ReturnResult result) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", result.status().name());
+        json.put("bookId", result.bookId());
+        json.put("daysOverdue", result.daysOverdue());
+        json.put("fine", result.fine());
+        return json;
+    }
+
+    private Object search(HttpExchange exchange) {
+        Map<String, String> query = queryParameters(exchange);
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 20;
+        List<Map<String, Object>> books = new ArrayList<>();
+        for (BookCache.BookRecord book : api.searchBooks(query.get("q"), Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS))) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("bookId", book.bookId());
+            json.put("title", book.title());
+            json.put("author", book.author());
+            json.put("available", book.available());
+            json.put("total", book.total());
+            books.add(json);
+        }
+        return books;
+    }
+
+    private Object overdue() {
+        List<Map<String, Object>> loans = new ArrayList<>();
+        OverdueSnapshot snapshot = api.getOverdueSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("transactionId", snapshot.transactionId(i));
+            json.put("title", snapshot.title(i));
+            json.put("memberName", snapshot.memberName(i));
+            json.put("issueDate", snapshot.issueDate(i).toString());
+            json.put("dueDate", snapshot.dueDate(i).toString());
+            json.put("daysOverdue", snapshot.daysOverdue(i));
+            json.put("fine", snapshot.fine(i));
+            loans.add(json);
+        }
+        return loans;
+    }
+
+    private Object stats() {
+        LibraryStats.Snapshot stats = api.getStats();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("titles", stats.titles());
+        json.put("copies", stats.copies());
+        json.put("availableCopies", stats.availableCopies());
+        json.put("activeLoans", stats.activeLoans());
+        json.put("overdueLoans", stats.overdueLoans());
+        json.put("outstandingFines", stats.outstandingFines());
+        json.put("issuedToday", stats.issuedToday());
+        json.put("returnedToday", stats.returnedToday());
+        json.put("day", stats.day());
+        json.put("reconciledAt", stats.reconciledAt());
+        return json;
+    }
+
+    private static Map<String, Object> health() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", "UP");
+        CatalogSearchIndex searchIndex = CatalogSearchIndex.shared();
+        if (searchIndex.isReady()) {
+            CatalogSearchIndex.IndexStats stats = searchIndex.stats();
+            Map<String, Object> index = new LinkedHashMap<>();
+            index.put("books", stats.books());
+            index.put("terms", stats.terms());
+            index.put("postings", stats.postings());
+            index.put("estimatedBytes", stats.estimatedBytes());
+            index.put("buildMillis", stats.buildMillis());
+            json.put("searchIndex", index);
+        }
+        return json;
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] bytes = in.readNBytes(MAX_REQUEST_BYTES + 1);
+        if (bytes.length > MAX_REQUEST_BYTES) {
+            throw new IllegalArgumentException("Request body too large");
+        }
+        if (!(Json.parse(new String(bytes, StandardCharsets.UTF_8)) instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        Map<String, Object> body = new HashMap<>();
+        map.forEach((key, value) -> body.put(String.valueOf(key), value));
+        return body;
+    }
+
+    private static int intField(Map<String, Object> body, String name) {
+        return intValue(body.get(name), name);
+    }
+
+    private static String stringField(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof String value)) {
+            throw new IllegalArgumentException("'" + name + "' must be a string");
+        }
+        return value;
+    }
+
+    private static List<Integer> intList(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof List<?> values)) {
+            throw new IllegalArgumentException("'" + name + "' must be an array of integers");
+        }
+        List<Integer> ints = new ArrayList<>(values.size());
+        for (Object value : values) {
+            ints.add(intValue(value, name + "[]"));
+        }
+        return ints;
+    }
+
+    private static int intValue(Object value, String name) {
+        if (!(value instanceof Long number) || number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("'" + name + "' must be an integer");
+        }
+        return number.intValue();
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.put(key, value);
+        }
+        return parameters;
+    }
+
+    private static Map<String, Object> error(String code, String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", code);
+        json.put("message", message);
+        return json;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.gui;
+
+/** Outcome of a single issue or return attempt. */
+public enum CirculationStatus {
+    OK,
+    MEMBER_NOT_FOUND,
+    BOOK_NOT_FOUND,
+    NOT_AVAILABLE,
+    ALREADY_ISSUED,
+    INVALID_TRANSACTION
+}
@@ -0,0 +1,394 @@
+package com.gui;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-bound JDBC connection pool. Connections handed out by {@link #borrow()} are
+ * proxies whose {@code close()} returns the physical connection to the pool, so callers
+ * keep using try-with-resources exactly as before. Statements they create are timed
+ * through {@link StatementMetrics}. A returned connection is rolled back and, if the
+ * caller changed them, its read-only flag, isolation level, catalog and holdability
+ * are put back to what a new connection has.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Metrics.Operation ACQUIRE = Metrics.shared().operation("pool.acquire");
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final long validationIntervalMillis;
+
+    // One permit per connection that may be handed out; bounds total connections to maxSize.
+    private final Semaphore permits;
+    // Most recently returned connection first, so the warmest connections are reused.
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private int openConnections;
+    private boolean closed;
+    // Session settings of a fresh connection, read from the first one opened
+    private volatile SessionDefaults defaults;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long idleTimeoutMillis,
+                          long acquireTimeoutMillis, long validationIntervalMillis) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        housekeeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens connections until {@code minSize} are idle in the pool, so the first
+     * requests do not pay for the TCP and authentication handshakes. Each one is opened
+     * under a permit, as a borrower would, so warming never takes the pool past
+     * {@code maxSize}; it stops early if every permit is in use.
+     */
+    public void warmUp() throws SQLException {
+        while (permits.tryAcquire()) {
+            try {
+                synchronized (this) {
+                    if (closed || openConnections >= minSize) {
+                        return;
+                    }
+                    openConnections++;
+                }
+                Connection raw;
+                try {
+                    raw = open();
+                } catch (SQLException e) {
+                    synchronized (this) {
+                        openConnections--;
+                    }
+                    throw e;
+                }
+                boolean keep;
+                synchronized (this) {
+                    keep = !closed;
+                    if (keep) {
+                        idle.addLast(new IdleConnection(raw, System.currentTimeMillis()));
+                    }
+                }
+                if (!keep) {
+                    destroy(raw);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                ACQUIRE.recordError();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection (" + stats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection raw = takeIdle();
+            if (raw == null) {
+                synchronized (this) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    openConnections++;
+                }
+                try {
+                    raw = open();
+                } catch (SQLException e) {
+                    synchronized (this) {
+                        openConnections--;
+                    }
+                    throw e;
+                }
+            }
+            borrows.incrementAndGet();
+            long waited = System.nanoTime() - start;
+            acquireNanos.addAndGet(waited);
+            ACQUIRE.record(waited);
+            return wrap(raw);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats stats() {
+        synchronized (this) {
+            long count = borrows.get();
+            return new PoolStats(openConnections, idle.size(), openConnections - idle.size(),
+                    permits.getQueueLength(), minSize, maxSize, created.get(), destroyed.get(),
+                    count, timeouts.get(), validationFailures.get(),
+                    count == 0 ? 0 : acquireNanos.get() / count / 1000);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Connection> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (IdleConnection entry : idle) {
+                toClose.add(entry.connection);
+            }
+            idle.clear();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(this::destroy);
+    }
+
+    private Connection takeIdle() {
+        while (true) {
+            IdleConnection entry;
+            synchronized (this) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                return null;
+            }
+            // Skip the validation round trip for connections that were in use moments ago.
+            if (System.currentTimeMillis() - entry.since < validationIntervalMillis || isValid(entry.connection)) {
+                return entry.connection;
+            }
+            validationFailures.incrementAndGet();
+            destroy(entry.connection);
+        }
+    }
+
+    private boolean isValid(Connection raw) {
+        try {
+            return raw.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, username, password);
+        created.incrementAndGet();
+        if (defaults == null) {
+            try {
+                defaults = new SessionDefaults(raw.isReadOnly(), raw.getTransactionIsolation(),
+                        raw.getCatalog(), raw.getHoldability());
+            } catch (SQLException e) {
+                raw.close();
+                throw e;
+            }
+        }
+        return raw;
+    }
+
+    /** Returns {@code raw} to the pool; {@code sessionChanged} if the borrower changed a session setting. */
+    private void release(Connection raw, boolean sessionChanged) {
+        boolean reusable;
+        try {
+            reusable = !raw.isClosed();
+            if (reusable && !raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+            if (reusable && sessionChanged) {
+                SessionDefaults session = defaults;
+                if (raw.isReadOnly() != session.readOnly()) {
+                    raw.setReadOnly(session.readOnly());
+                }
+                if (raw.getTransactionIsolation() != session.isolation()) {
+                    raw.setTransactionIsolation(session.isolation());
+                }
+                if (session.catalog() != null && !session.catalog().equals(raw.getCatalog())) {
+                    raw.setCatalog(session.catalog());
+                }
+                if (raw.getHoldability() != session.holdability()) {
+                    raw.setHoldability(session.holdability());
+                }
+            }
+            if (reusable) {
+                raw.clearWarnings();
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        boolean keep = false;
+        synchronized (this) {
+            if (reusable && !closed) {
+                idle.addFirst(new IdleConnection(raw, System.currentTimeMillis()));
+                keep = true;
+            }
+        }
+        if (!keep) {
+            destroy(raw);
+        }
+        permits.release();
+    }
+
+    private void destroy(Connection raw) {
+        synchronized (this) {
+            openConnections--;
+        }
+        destroyed.incrementAndGet();
+        try {
+            raw.close();
+        } catch (SQLException e) {
+            // Already broken; nothing more to release.
+        }
+    }
+
+    private void evictIdle() {
+        List<Connection> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            // Oldest idle connections sit at the tail of the deque.
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && openConnections - expired.size() > minSize) {
+                IdleConnection entry = it.next();
+                if (now - entry.since < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                expired.add(entry.connection);
+            }
+        }
+        expired.forEach(this::destroy);
+
+        try {
+            warmUp();
+        } catch (SQLException e) {
+            System.err.println("Connection pool could not refill to minimum size: " + e.getMessage());
+        }
+    }
+
+    private Connection wrap(Connection raw) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnectionHandler(raw));
+    }
+
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection raw;
+        // Closing can race with a call on another thread; only the first close releases the permit
+        private final AtomicBoolean returned = new AtomicBoolean();
+        private volatile boolean sessionChanged;
+
+        PooledConnectionHandler(Connection raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(raw, sessionChanged);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || raw.isClosed();
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                case "setCatalog":
+                case "setHoldability":
+                    sessionChanged = true;
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + raw + "]";
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            Object result;
+            try {
+                result = method.invoke(raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return StatementMetrics.wrap(statement, method.getReturnType(), sql);
+            }
+            return result;
+        }
+    }
+
+    private record IdleConnection(Connection connection, long since) {
+    }
+
+    private record SessionDefaults(boolean readOnly, int isolation, String catalog, int holdability) {
+    }
+
+    public record PoolStats(int total, int idle, int active, int waiting, int minSize, int maxSize,
+                            long created, long destroyed, long borrows, long timeouts,
+                            long validationFailures, long avgAcquireMicros) {
+
+        @Override
+        public String toString() {
+            return "total=" + total + ", idle=" + idle + ", active=" + active + ", waiting=" + waiting
+                    + ", created=" + created + ", destroyed=" + destroyed + ", borrows=" + borrows
+                    + ", timeouts=" + timeouts + ", avgAcquire=" + avgAcquireMicros + "us";
+        }
+    }
+}
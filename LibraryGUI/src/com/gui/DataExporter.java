@@ -0,0 +1,146 @@
+package com.gui;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Writes books, members or transaction history to CSV or JSON Lines. Rows are read
+ * from a forward-only, read-only result set and written straight to a buffered file,
+ * so the heap holds one row at a time however large the table is. Transaction exports
+ * can start after a given TransactionID, which makes repeated incremental exports cheap.
+ */
+public class DataExporter {
+
+    public enum Format {
+        CSV, JSONL;
+
+        /** Picks the format from a file name, defaulting to CSV. */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSONL : CSV;
+        }
+    }
+
+    /** {@code lastId} is the largest key written, the starting point for the next incremental export. */
+    public record ExportResult(long rows, int lastId, long elapsedMillis, Path file) {
+
+        @Override
+        public String toString() {
+            return String.format("%d rows written to %s in %.1f s", rows, file.getFileName(), elapsedMillis / 1000.0);
+        }
+    }
+
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private final int fetchSize = Integer.getInteger("library.export.fetchSize", 1_000);
+
+    public ExportResult exportBooks(Path file, Format format) throws IOException, SQLException, ClassNotFoundException {
+        return export(file, format, "SELECT BookID, Title, Author, Available, Total FROM books ORDER BY BookID", null,
+                List.of("BookID", "Title", "Author", "Available", "Total"));
+    }
+
+    public ExportResult exportMembers(Path file, Format format) throws IOException, SQLException, ClassNotFoundException {
+        return export(file, format,
+                "SELECT MemberID, Name, Email, Phone, Reg_Date FROM member ORDER BY MemberID", null,
+                List.of("MemberID", "Name", "Email", "Phone", "Reg_Date"));
+    }
+
+    /** Exports every transaction with an ID greater than {@code afterTransactionId} (0 for the full history). */
+    public ExportResult exportTransactions(Path file, Format format, int afterTransactionId)
+            throws IOException, SQLException, ClassNotFoundException {
+        String sql = """
+            SELECT t.TransactionID, t.MemberID, m.Name, t.BookID, b.Title,
+                   t.IssueDate, t.DueDate, t.ReturnDate, t.Status, t.Fine, t.DaysOverdue
+            FROM transactions t
+            JOIN member m ON t.MemberID = m.MemberID
+            JOIN books b ON t.BookID = b.BookID
+            WHERE t.TransactionID > ?
+            ORDER BY t.TransactionID
+        """;
+        return export(file, format, sql, afterTransactionId, List.of("TransactionID", "MemberID", "MemberName",
+                "BookID", "BookTitle", "IssueDate", "DueDate", "ReturnDate", "Status", "Fine", "DaysOverdue"));
+    }
+
+    /** Streams {@code sql} to {@code file}; the first selected column must be the integer key. */
+    private ExportResult export(Path file, Format format, String sql, Integer afterId, List<String> labels)
+            throws IOException, SQLException, ClassNotFoundException {
+        long start = System.nanoTime();
+        // Write beside the target and move into place, so a failed export never leaves a truncated file
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long rows = 0;
+        int lastId = afterId == null ? 0 : afterId;
+        boolean moved = false;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(partial),
+                     StandardCharsets.UTF_8), WRITE_BUFFER)) {
+            // Some drivers only use a server-side cursor inside a transaction
+            conn.setAutoCommit(false);
+            ps.setFetchSize(DatabaseConnection.streamingFetchSize(conn, fetchSize));
+            if (afterId != null) {
+                ps.setInt(1, afterId);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (format == Format.CSV) {
+                    out.write(CsvReader.toLine(labels));
+                    out.write('\n');
+                }
+
+                while (rs.next()) {
+                    lastId = rs.getInt(1);
+                    if (format == Format.CSV) {
+                        writeCsvRow(out, rs, labels.size());
+                    } else {
+                        writeJsonRow(out, rs, labels);
+                    }
+                    rows++;
+                }
+            }
+            conn.commit();
+            // Flush and close the writer before the file is moved into place
+            out.close();
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            // Whatever went wrong, including runtime errors, don't leave the partial file behind
+            if (!moved) {
+                Files.deleteIfExists(partial);
+            }
+        }
+        return new ExportResult(rows, lastId, (System.nanoTime() - start) / 1_000_000, file);
+    }
+
+    private static void writeCsvRow(Writer out, ResultSet rs, int columns) throws SQLException, IOException {
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            out.write(CsvReader.quote(rs.getString(i)));
+        }
+        out.write('\n');
+    }
+
+    private static void writeJsonRow(Writer out, ResultSet rs, List<String> labels) throws SQLException, IOException {
+        out.write('{');
+        for (int i = 1; i <= labels.size(); i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            Json.appendString(out, labels.get(i - 1));
+            out.write(':');
+            Object value = rs.getObject(i);
+            Json.appendValue(out, value instanceof Number || value == null ? value : rs.getString(i));
+        }
+        out.write("}\n");
+    }
+}
@@ -0,0 +1,124 @@
+package com.gui;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Fills an empty database with synthetic books, members and open loans for
+ * benchmarks and load tests. A fixed random seed keeps runs comparable.
+ */
+public class DataSeeder {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final int books;
+    private final int members;
+    private final int openLoans;
+    private final double overdueFraction;
+    private final Random random = new Random(42);
+
+    public DataSeeder(int books, int members, int openLoans, double overdueFraction) {
+        if ((long) books * members < openLoans) {
+            throw new IllegalArgumentException("Not enough member/book pairs for " + openLoans + " open loans");
+        }
+        this.books = books;
+        this.members = members;
+        this.openLoans = openLoans;
+        this.overdueFraction = overdueFraction;
+    }
+
+    /** Creates the schema if needed and seeds it unless books already has rows. */
+    public void seed() throws SQLException, ClassNotFoundException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            SchemaManager.migrate(conn);
+            try (Statement stmt = conn.createStatement()) {
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books");
+                if (rs.next() && rs.getInt(1) > 0) {
+                    System.out.println("Database already seeded; reusing existing rows");
+                    return;
+                }
+            }
+
+            long start = System.nanoTime();
+            conn.setAutoCommit(false);
+            insertBooks(conn);
+            insertMembers(conn);
+            insertLoans(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("""
+                    UPDATE books SET Available = Total - (
+                        SELECT COUNT(*) FROM transactions t WHERE t.BookID = books.BookID AND t.Status = 'ISSUED')
+                """);
+            }
+            conn.commit();
+            System.out.printf("Seeded %d books, %d members, %d open loans in %d ms%n",
+                    books, members, openLoans, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void insertBooks(Connection conn) throws SQLException {
+        // Every book gets a few spare copies beyond its share of the open loans
+        int copies = (openLoans + books - 1) / books + 3;
+        String sql = "INSERT INTO books (Title, Author, Available, Total) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= books; i++) {
+                ps.setString(1, "Title " + i + " " + WORDS[random.nextInt(WORDS.length)]);
+                ps.setString(2, "Author " + (i % 5_000));
+                ps.setInt(3, copies);
+                ps.setInt(4, copies);
+                ps.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertMembers(Connection conn) throws SQLException {
+        String sql = "INSERT INTO member (Name, Email, Phone, Reg_Date) VALUES (?, ?, ?, ?)";
+        Date registered = Date.valueOf(LocalDate.now().minusYears(1));
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= members; i++) {
+                ps.setString(1, "Member " + i);
+                ps.setString(2, "member" + i + "@example.org");
+                ps.setString(3, String.format("9%09d", i));
+                ps.setDate(4, registered);
+                ps.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertLoans(Connection conn) throws SQLException {
+        String sql = "INSERT INTO transactions (MemberID, BookID, IssueDate, DueDate, Status) VALUES (?, ?, ?, ?, 'ISSUED')";
+        LocalDate today = LocalDate.now();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < openLoans; i++) {
+                // Distinct (member, book) pairs, so no member holds the same book twice
+                int bookId = i % books + 1;
+                int memberId = (i / books) % members + 1;
+                boolean overdue = random.nextDouble() < overdueFraction;
+                LocalDate issued = overdue ? today.minusDays(15 + random.nextInt(60)) : today.minusDays(random.nextInt(14));
+                ps.setInt(1, memberId);
+                ps.setInt(2, bookId);
+                ps.setDate(3, Date.valueOf(issued));
+                ps.setDate(4, Date.valueOf(issued.plusDays(14)));
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    static final String[] WORDS = {
+        "River", "Garden", "Shadow", "Empire", "Winter", "Silence", "Harbor", "Compass",
+        "Lantern", "Orchard", "Thunder", "Mirror", "Voyage", "Ember", "Meadow", "Citadel"
+    };
+}
@@ -1,14 +1,63 @@
-package com.gui;
-
-import java.sql.*;
-
-public class DatabaseConnection {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/library_schema";
-    private static final String DB_USERNAME = "root";
-    private static final String DB_PASSWORD = "Hashim@2004";
-
-    public static Connection getConnection() throws SQLException, ClassNotFoundException {
-        Class.forName("com.mysql.cj.jdbc.Driver");
-        return DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
-    }
-}
+package com.gui;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+/**
+ * Hands out pooled connections to the configured database. {@code library.db.backend}
+ * picks the storage: {@code mysql} (the default) connects to a MySQL server, and
+ * {@code embedded} opens an H2 database stored in files under {@code library.db.path},
+ * so a standalone terminal needs no server. {@code library.db.url} overrides either.
+ */
+public class DatabaseConnection {
+    private static final boolean EMBEDDED = "embedded".equalsIgnoreCase(System.getProperty("library.db.backend", "mysql"));
+    private static final String DB_URL = System.getProperty("library.db.url", EMBEDDED
+            ? "jdbc:h2:file:" + Path.of(System.getProperty("library.db.path", "library-data/library")).toAbsolutePath()
+                + ";MODE=MySQL"
+            : "jdbc:mysql://localhost:3306/library_schema");
+    private static final String DB_USERNAME = System.getProperty("library.db.username", EMBEDDED ? "sa" : "root");
+    private static final String DB_PASSWORD = System.getProperty("library.db.password", EMBEDDED ? "" : "Hashim@2004");
+    private static final SqlDialect DIALECT = SqlDialect.forUrl(DB_URL);
+    private static final String DB_DRIVER = System.getProperty("library.db.driver", DIALECT.driverClass());
+
+    private static volatile ConnectionPool pool;
+
+    public static Connection getConnection() throws SQLException, ClassNotFoundException {
+        return getPool().borrow();
+    }
+
+    public static ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    Class.forName(DB_DRIVER);
+                    p = new ConnectionPool(DB_URL, DB_USERNAME, DB_PASSWORD,
+                            Integer.getInteger("library.pool.minSize", 2),
+                            Integer.getInteger("library.pool.maxSize", 10),
+                            Long.getLong("library.pool.idleTimeoutMs", 300_000L),
+                            Long.getLong("library.pool.acquireTimeoutMs", 5_000L),
+                            Long.getLong("library.pool.validationIntervalMs", 1_000L));
+                    Runtime.getRuntime().addShutdownHook(new Thread(p::close, "connection-pool-shutdown"));
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    public static SqlDialect dialect() {
+        return DIALECT;
+    }
+
+    /** Fetch size that makes a forward-only query stream rows instead of buffering the whole result. */
+    public static int streamingFetchSize(Connection conn, int fetchSize) throws SQLException {
+        return DIALECT.streamingFetchSize(conn.getMetaData().getURL(), fetchSize);
+    }
+
+    /** Opens the pool's minimum connections ahead of the first request. */
+    public static void warmUp() throws SQLException, ClassNotFoundException {
+        getPool().warmUp();
+    }
+}
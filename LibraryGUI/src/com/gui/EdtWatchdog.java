@@ -0,0 +1,151 @@
+package com.gui;
+
+import javax.swing.AbstractButton;
+import java.awt.AWTEvent;
+import java.awt.event.ActionEvent;
+import java.awt.event.InvocationEvent;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the event dispatch thread being blocked for longer than {@code library.edt.stallMs}.
+ * When a stall is detected its stack, the SQL the EDT is waiting on (if any) and the action
+ * that caused it are appended to {@code library.edt.stallLog}; when it ends, the total time
+ * is logged and recorded under {@code edt.stall: <action>} in {@link Metrics}, which keeps
+ * the per-action stall counts. The action is the text of the clicked menu item or button.
+ */
+public class EdtWatchdog {
+
+    private static final int MAX_FRAMES = 60;
+
+    private final InstrumentedEventQueue queue;
+    private final long stallNanos;
+    private final Path logFile = Path.of(System.getProperty("library.edt.stallLog", "edt-stalls.log"));
+    private final long maxLogBytes = Long.getLong("library.edt.stallLogMaxBytes", 1_048_576);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "edt-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Watchdog thread only: the busy period being reported, 0 when none
+    private long stallSince;
+    private String stallAction;
+
+    public EdtWatchdog(InstrumentedEventQueue queue, long stallMillis) {
+        this.queue = queue;
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+    }
+
+    /** Starts watching unless {@code library.edt.stallMs} (default 500) is 0 or less. */
+    public static void startIfEnabled(InstrumentedEventQueue queue) {
+        long stallMillis = Long.getLong("library.edt.stallMs", 500);
+        if (stallMillis > 0) {
+            new EdtWatchdog(queue, stallMillis).start();
+        }
+    }
+
+    public void start() {
+        long pollMillis = Math.max(10, TimeUnit.NANOSECONDS.toMillis(stallNanos) / 5);
+        executor.scheduleWithFixedDelay(this::check, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void check() {
+        try {
+            long since = queue.busySince();
+            if (stallSince != 0 && since != stallSince) {
+                stallEnded();
+            }
+            if (since != 0 && stallSince == 0 && System.nanoTime() - since >= stallNanos) {
+                stallStarted(since);
+            }
+        } catch (Exception e) {
+            System.err.println("EDT watchdog: " + e.getMessage());
+        }
+    }
+
+    private void stallStarted(long since) throws IOException {
+        Thread edt = queue.dispatchThread();
+        AWTEvent event = queue.busyEvent();
+        StackTraceElement[] stack = edt == null ? new StackTraceElement[0] : edt.getStackTrace();
+        String sql = StatementMetrics.activeSql(edt);
+        if (queue.busySince() != since) {
+            return; // finished while we looked
+        }
+        stallSince = since;
+        stallAction = describe(event);
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(Instant.now()).append(" EDT blocked for ")
+             .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since)).append(" ms handling ")
+             .append(stallAction).append(System.lineSeparator());
+        if (sql != null) {
+            entry.append("    waiting on SQL: ").append(sql.strip().replaceAll("\\s+", " ")).append(System.lineSeparator());
+        }
+        for (int i = 0; i < Math.min(stack.length, MAX_FRAMES); i++) {
+            entry.append("    at ").append(stack[i]).append(System.lineSeparator());
+        }
+        if (stack.length > MAX_FRAMES) {
+            entry.append("    ... ").append(stack.length - MAX_FRAMES).append(" more").append(System.lineSeparator());
+        }
+        write(entry.toString());
+    }
+
+    private void stallEnded() throws IOException {
+        InstrumentedEventQueue.BusyPeriod last = queue.lastBusy();
+        // The exact end is known unless another busy period has already finished since
+        long ended = last != null && last.since() == stallSince ? last.ended() : System.nanoTime();
+        long nanos = ended - stallSince;
+        String action = stallAction;
+        stallSince = 0;
+        stallAction = null;
+
+        Metrics.shared().operation("edt.stall").record(nanos);
+        Metrics.shared().operation("edt.stall: " + action).record(nanos);
+        write(Instant.now() + " EDT stall handling " + action + " ended after "
+                + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms" + System.lineSeparator());
+    }
+
+    /** Names the user action behind an event, e.g. {@code "Overdue Books" (JMenuItem)}. */
+    static String describe(AWTEvent event) {
+        if (event == null) {
+            return "unknown event";
+        }
+        Object source = event.getSource();
+        if (source instanceof AbstractButton button && button.getText() != null && !button.getText().isBlank()) {
+            return "\"" + button.getText() + "\" (" + button.getClass().getSimpleName() + ")";
+        }
+        if (event instanceof ActionEvent action && action.getActionCommand() != null) {
+            return "\"" + action.getActionCommand() + "\" (" + source.getClass().getSimpleName() + ")";
+        }
+        if (event instanceof InvocationEvent) {
+            return "invokeLater task";
+        }
+        return event.getClass().getSimpleName() + " on " + source.getClass().getSimpleName();
+    }
+
+    // Keeps the current log plus one older file
+    private void write(String entry) throws IOException {
+        if (Files.exists(logFile) && Files.size(logFile) + entry.length() > maxLogBytes) {
+            Files.move(logFile, logFile.resolveSibling(logFile.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(entry);
+        }
+        System.err.print(entry);
+    }
+}
@@ -0,0 +1,126 @@
+package com.gui;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * The one place fines are worked out. A fine depends only on how many days a loan is
+ * overdue, so each distinct day count (one per due date, for a given day) is evaluated
+ * by the {@link Policy} once and remembered; every loan in that bucket reuses it.
+ * <p>
+ * The shared engine's policy is set with {@code library.fines.perDay} (default 5),
+ * {@code library.fines.graceDays} (default 0) and {@code library.fines.max} (default 0,
+ * no cap), or replaced in code with {@link #install(Policy)}.
+ */
+public class FineEngine {
+
+    /** Decides what a loan owes; must depend on nothing but the days overdue. */
+    @FunctionalInterface
+    public interface Policy {
+        /** The fine for a loan returned, or assessed, {@code daysOverdue} (at least 1) days late. */
+        int fine(long daysOverdue);
+
+        /**
+         * The same rule as SQL over the integer expression {@code daysOverdue}, so the database
+         * can sort by it; null when the policy cannot be written in SQL.
+         */
+        default String sql(String daysOverdue) {
+            return null;
+        }
+
+        /**
+         * {@code perDay} for every day beyond the first {@code graceDays}, capped at
+         * {@code max} when that is above 0.
+         */
+        static Policy perDay(int perDay, int graceDays, int max) {
+            if (perDay < 0 || graceDays < 0 || max < 0) {
+                throw new IllegalArgumentException("Fine settings cannot be negative");
+            }
+            return new Policy() {
+                @Override
+                public int fine(long daysOverdue) {
+                    long charged = Math.max(daysOverdue - graceDays, 0) * perDay;
+                    return (int) (max > 0 ? Math.min(charged, max) : Math.min(charged, Integer.MAX_VALUE));
+                }
+
+                @Override
+                public String sql(String daysOverdue) {
+                    String charged = "GREATEST(" + daysOverdue + " - " + graceDays + ", 0) * " + perDay;
+                    return max > 0 ? "LEAST(" + charged + ", " + max + ")" : charged;
+                }
+            };
+        }
+    }
+
+    /** Days overdue and fine for one loan; both are 0 for a loan that is not overdue. */
+    public record Assessment(long daysOverdue, int fine) {
+        public static final Assessment NONE = new Assessment(0, 0);
+    }
+
+    // Day counts beyond this are rare enough to evaluate every time
+    private static final int MAX_REMEMBERED_DAYS = 3_660;
+
+    private static volatile FineEngine shared = new FineEngine(Policy.perDay(
+            Integer.getInteger("library.fines.perDay", 5),
+            Integer.getInteger("library.fines.graceDays", 0),
+            Integer.getInteger("library.fines.max", 0)));
+
+    private final Policy policy;
+    // Index = days overdue; grown on demand, replaced rather than modified so readers need no lock
+    private volatile Assessment[] assessments = new Assessment[0];
+
+    public FineEngine(Policy policy) {
+        this.policy = policy;
+    }
+
+    public static FineEngine shared() {
+        return shared;
+    }
+
+    /** Replaces the shared policy, e.g. at startup. Fines already charged on return are kept. */
+    public static void install(Policy policy) {
+        shared = new FineEngine(policy);
+    }
+
+    /** The fine for a loan due on {@code dueDate}, assessed on {@code asOf} (the return date or today). */
+    public Assessment assess(LocalDate dueDate, LocalDate asOf) {
+        return assess(ChronoUnit.DAYS.between(dueDate, asOf));
+    }
+
+    /** The fine for {@code daysOverdue} as SQL, 0 when it is not positive; null if the policy has no SQL form. */
+    public String sql(String daysOverdue) {
+        String fine = policy.sql(daysOverdue);
+        return fine == null ? null : "CASE WHEN " + daysOverdue + " > 0 THEN " + fine + " ELSE 0 END";
+    }
+
+    public Assessment assess(long daysOverdue) {
+        if (daysOverdue <= 0) {
+            return Assessment.NONE;
+        }
+        Assessment[] known = assessments;
+        if (daysOverdue < known.length) {
+            return known[(int) daysOverdue];
+        }
+        if (daysOverdue > MAX_REMEMBERED_DAYS) {
+            return new Assessment(daysOverdue, policy.fine(daysOverdue));
+        }
+        return remember((int) daysOverdue);
+    }
+
+    private synchronized Assessment remember(int daysOverdue) {
+        Assessment[] known = assessments;
+        if (daysOverdue < known.length) {
+            return known[daysOverdue];
+        }
+        // Grow geometrically so a sweep over old due dates fills the table in a few steps
+        int length = Math.min(Math.max(daysOverdue + 1, known.length * 2), MAX_REMEMBERED_DAYS + 1);
+        Assessment[] grown = Arrays.copyOf(known, length);
+        grown[0] = Assessment.NONE;
+        for (int days = Math.max(known.length, 1); days < length; days++) {
+            grown[days] = new Assessment(days, policy.fine(days));
+        }
+        assessments = grown;
+        return grown[daysOverdue];
+    }
+}
@@ -0,0 +1,91 @@
+package com.gui;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+
+/**
+ * Event queue that times every event the EDT dispatches, so time spent blocking the
+ * user interface shows up as {@code edt.dispatch} next to the service timings. It also
+ * publishes how long the EDT has been busy for {@link EdtWatchdog}; a modal dialog's
+ * nested event loop counts as idle while it waits for input.
+ */
+public class InstrumentedEventQueue extends EventQueue {
+
+    private static final Metrics.Operation DISPATCH = Metrics.shared().operation("edt.dispatch");
+
+    // Written on the EDT only, read by the watchdog
+    private volatile Thread dispatchThread;
+    private volatile AWTEvent busyEvent;
+    private volatile long busySince;
+    private volatile BusyPeriod lastBusy;
+
+    /** A stretch of {@link System#nanoTime()} during which the EDT ran code without waiting for events. */
+    record BusyPeriod(long since, long ended) {
+    }
+
+    /** Replaces the system event queue; call once at startup. */
+    public static InstrumentedEventQueue install() {
+        InstrumentedEventQueue queue = new InstrumentedEventQueue();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        return queue;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        Thread current = Thread.currentThread();
+        if (current != dispatchThread) {
+            dispatchThread = current;
+            StatementMetrics.watchThread(current);
+        }
+        AWTEvent outer = busyEvent;
+        long start = System.nanoTime();
+        busyEvent = event;
+        busySince = start;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long now = System.nanoTime();
+            DISPATCH.record(now - start);
+            endBusy(now);
+            busyEvent = outer;
+            if (outer != null) {
+                // Back in the handler that opened a nested event loop
+                busySince = now;
+            }
+        }
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        endBusy(System.nanoTime());
+        return super.getNextEvent();
+    }
+
+    Thread dispatchThread() {
+        return dispatchThread;
+    }
+
+    /** The event being handled, or null when the EDT is waiting for one. */
+    AWTEvent busyEvent() {
+        return busyEvent;
+    }
+
+    /** {@link System#nanoTime()} when the EDT last started running code, or 0 while it waits. */
+    long busySince() {
+        return busySince;
+    }
+
+    /** The last busy period that has finished, or null. */
+    BusyPeriod lastBusy() {
+        return lastBusy;
+    }
+
+    private void endBusy(long now) {
+        long since = busySince;
+        if (since != 0) {
+            busySince = 0;
+            lastBusy = new BusyPeriod(since, now);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.gui;
+
+import java.time.LocalDate;
+
+/** Result of an issue attempt; the transaction ID and due date are only set when the status is OK. */
+public record IssueResult(CirculationStatus status, int transactionId, LocalDate dueDate) {
+}
@@ -0,0 +1,44 @@
+package com.gui;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The circulation operations a desk needs. {@link #configured()} returns the local
+ * services, or a client for a {@link CirculationServer} when {@code library.server}
+ * names one.
+ */
+public interface LibraryApi {
+
+    IssueResult issueBook(int memberId, int bookId);
+
+    ReturnResult returnBook(int transactionId);
+
+    /** Issues several books to one member in one transaction; one outcome per distinct BookID. */
+    Map<Integer, IssueResult> issueBooks(int memberId, Collection<Integer> bookIds);
+
+    /** Returns several loans in one transaction; one outcome per distinct TransactionID. */
+    Map<Integer, ReturnResult> returnBooks(Collection<Integer> transactionIds);
+
+    /** Adds a title with {@code quantity} copies and returns its BookID. */
+    int addBook(String title, String author, int quantity);
+
+    List<BookCache.BookRecord> searchBooks(String query, int limit);
+
+    OverdueSnapshot getOverdueSnapshot();
+
+    /** The live dashboard counters, as last updated by the services that own the database. */
+    LibraryStats.Snapshot getStats();
+
+    /** True when calls go to a remote server rather than straight to the database. */
+    boolean isRemote();
+
+    static LibraryApi configured() {
+        String server = System.getProperty("library.server");
+        if (server == null || server.isBlank()) {
+            return new LocalLibraryApi();
+        }
+        return new RemoteLibraryApi(server, System.getProperty("library.server.token"));
+    }
+}
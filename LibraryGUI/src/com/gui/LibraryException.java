@@ -0,0 +1,43 @@
+package com.gui;
+
+/**
+ * Thrown by the services when an operation cannot be carried out. The reason tells
+ * callers whether the request itself was wrong or the database failed; the message
+ * is written for the person who made the request.
+ */
+public class LibraryException extends RuntimeException {
+
+    public enum Reason {
+        /** The input failed a validation rule. */
+        INVALID_INPUT,
+        /** The record would duplicate an existing one, e.g. a member email. */
+        DUPLICATE,
+        /** The database (or the circulation server in front of it) could not be reached, or the statement failed. */
+        DATABASE
+    }
+
+    private final Reason reason;
+
+    public LibraryException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public LibraryException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+
+    static LibraryException invalid(String message) {
+        return new LibraryException(Reason.INVALID_INPUT, message);
+    }
+
+    /** Wraps a driver or connection failure that happened while trying to {@code action}. */
+    static LibraryException database(String action, Exception cause) {
+        return new LibraryException(Reason.DATABASE, "Could not " + action + ": " + cause.getMessage(), cause);
+    }
+}
@@ -1,330 +1,748 @@
-package com.gui;
-
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import java.awt.*;
-import java.io.File;
-import java.sql.*;
-import java.util.List;
-
-public class LibraryManagement extends JFrame {
-
-    private final BookService bookService = new BookService();
-    private final MemberService memberService = new MemberService();
-    private final TransactionService transactionService = new TransactionService();
-
-    public LibraryManagement() {
-        setTitle("Library Management System");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(800, 600);
-        setLocationRelativeTo(null);
-
-        createMenuBar();
-
-        JPanel mainPanel = new JPanel(new BorderLayout());
-
-        // 💡 Use vertical Box container for image + welcome text
-        Box centerBox = Box.createVerticalBox();
-        centerBox.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        try { 	
-            ImageIcon logoIcon = new ImageIcon("logo.png");
-            Image image = logoIcon.getImage().getScaledInstance(150, 150, Image.SCALE_SMOOTH);
-            JLabel logoLabel = new JLabel(new ImageIcon(image));
-            logoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            centerBox.add(Box.createVerticalStrut(20));
-            centerBox.add(logoLabel);
-            System.out.println(new File("logo.png").exists());
-            System.out.println("Logo added!");
-        } catch (Exception e) {
-            System.err.println("Logo not found: " + e.getMessage());
-        }
-
-        JLabel welcomeLabel = new JLabel("Welcome to Library Management System", JLabel.CENTER);
-        welcomeLabel.setFont(new Font("Times New Roman", Font.BOLD, 30));
-        welcomeLabel.setForeground(Color.BLUE);
-        welcomeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        centerBox.add(Box.createVerticalStrut(20)); // spacing
-        centerBox.add(welcomeLabel);
-
-        // 📦 Wrap the box in a panel so BorderLayout.CENTER works nicely
-        JPanel centerPanel = new JPanel();
-        centerPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-        centerPanel.add(centerBox);
-
-        mainPanel.add(centerPanel, BorderLayout.CENTER);
-        add(mainPanel);
-    }
-
-
-    private JPanel createStatsPanel() {
-        JPanel panel = new JPanel(new FlowLayout());
-        panel.setBorder(BorderFactory.createTitledBorder("Quick Stats"));
-        
-        JButton refreshButton = new JButton("Refresh Stats");
-        refreshButton.addActionListener(e -> updateStats());
-        panel.add(refreshButton);
-        
-        return panel;
-    }
-
-    private void updateStats() {
-        // This could be enhanced to show actual statistics from database
-        JOptionPane.showMessageDialog(this, "Statistics feature can be implemented here", 
-                                    "Stats", JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    private void createMenuBar() {
-        JMenuBar menuBar = new JMenuBar();
-
-        // Books Menu
-        JMenu bookMenu = new JMenu("Books");
-        JMenuItem viewBooks = new JMenuItem("View Books");
-        JMenuItem addBook = new JMenuItem("Add Book");
-
-        viewBooks.addActionListener(e -> bookService.displayBooks());
-        addBook.addActionListener(e -> showAddBookDialog());
-
-        bookMenu.add(viewBooks);
-        bookMenu.add(addBook);
-
-        // Members Menu
-        JMenu memberMenu = new JMenu("Members");
-        JMenuItem viewMembers = new JMenuItem("View Members");
-        JMenuItem addMember = new JMenuItem("Add Member");
-
-        viewMembers.addActionListener(e -> memberService.displayMembers());
-        addMember.addActionListener(e -> showAddMemberDialog());
-
-        memberMenu.add(viewMembers);
-        memberMenu.add(addMember);
-
-        // Transactions Menu
-        JMenu transactionMenu = new JMenu("Transactions");
-        JMenuItem viewTransactions = new JMenuItem("View Transactions");
-        JMenuItem overdueBooks = new JMenuItem("Overdue Books"); // Fixed: declare the variable
-        JMenuItem issueBook = new JMenuItem("Issue Book");
-        JMenuItem returnBook = new JMenuItem("Return Book");
-
-        viewTransactions.addActionListener(e -> transactionService.displayTransactions());
-        overdueBooks.addActionListener(e -> showOverdueBooks());
-        issueBook.addActionListener(e -> showIssueBookDialog());
-        returnBook.addActionListener(e -> showReturnBookDialog());
-
-        transactionMenu.add(viewTransactions);
-        transactionMenu.add(overdueBooks);
-        transactionMenu.addSeparator();
-        transactionMenu.add(issueBook);
-        transactionMenu.add(returnBook);
-
-        menuBar.add(bookMenu);
-        menuBar.add(memberMenu);
-        menuBar.add(transactionMenu);
-
-        setJMenuBar(menuBar);
-    }
-
-    private void showAddBookDialog() {
-        JTextField titleField = new JTextField(20);
-        JTextField authorField = new JTextField(20);
-        JTextField qtyField = new JTextField(10);
-
-        JPanel panel = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(5, 5, 5, 5);
-
-        gbc.gridx = 0; gbc.gridy = 0;
-        panel.add(new JLabel("Book Title:"), gbc);
-        gbc.gridx = 1;
-        panel.add(titleField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 1;
-        panel.add(new JLabel("Author:"), gbc);
-        gbc.gridx = 1;
-        panel.add(authorField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 2;
-        panel.add(new JLabel("Quantity:"), gbc);
-        gbc.gridx = 1;
-        panel.add(qtyField, gbc);
-
-        int result = JOptionPane.showConfirmDialog(this, panel, "Add Book", 
-                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-
-        if (result == JOptionPane.OK_OPTION) {
-            try {
-                String title = titleField.getText();
-                String author = authorField.getText();
-                int qty = Integer.parseInt(qtyField.getText());
-                bookService.addBook(title, author, qty);
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid quantity. Please enter a number.", 
-                                            "Input Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    private void showAddMemberDialog() {
-        JTextField nameField = new JTextField(20);
-        JTextField emailField = new JTextField(20);
-        JTextField phoneField = new JTextField(15);
-
-        JPanel panel = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(5, 5, 5, 5);
-
-        gbc.gridx = 0; gbc.gridy = 0;
-        panel.add(new JLabel("Name:"), gbc);
-        gbc.gridx = 1;
-        panel.add(nameField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 1;
-        panel.add(new JLabel("Email:"), gbc);
-        gbc.gridx = 1;
-        panel.add(emailField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 2;
-        panel.add(new JLabel("Phone:"), gbc);
-        gbc.gridx = 1;
-        panel.add(phoneField, gbc);
-
-        int result = JOptionPane.showConfirmDialog(this, panel, "Add Member", 
-                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-
-        if (result == JOptionPane.OK_OPTION) {
-            String name = nameField.getText();
-            String email = emailField.getText();
-            String phone = phoneField.getText();
-            
-            if (name != null && !name.trim().isEmpty() && 
-                email != null && !email.trim().isEmpty() && 
-                phone != null && !phone.trim().isEmpty()) {
-                
-                // Validate phone number
-                if (!phone.matches("\\d{10}")) {
-                    JOptionPane.showMessageDialog(this, "Phone number must be exactly 10 digits.", 
-                                                "Input Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                
-                // Validate email format
-                if (!email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-                    JOptionPane.showMessageDialog(this, "Invalid email format.", 
-                                                "Input Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                
-                // Add member with all details
-                addMemberWithDetails(name, email, phone);
-            } else {
-                JOptionPane.showMessageDialog(this, "All fields are required.", 
-                                            "Input Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    private void addMemberWithDetails(String name, String email, String phone) {
-        String sql = "INSERT INTO member (Name, Email, Phone, Reg_Date) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, name.trim());
-            ps.setString(2, email.trim());
-            ps.setString(3, phone.trim());
-            ps.setDate(4, Date.valueOf(java.time.LocalDate.now()));
-            ps.executeUpdate();
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                int memberId = rs.getInt(1);
-                JOptionPane.showMessageDialog(null, "Member added successfully.\nMember ID = " + memberId);
-            }
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
-    }
-
-    private void showIssueBookDialog() {
-        JTextField memberIdField = new JTextField(10);
-        JTextField bookIdField = new JTextField(10);
-
-        JPanel panel = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(5, 5, 5, 5);
-
-        gbc.gridx = 0; gbc.gridy = 0;
-        panel.add(new JLabel("Member ID:"), gbc);
-        gbc.gridx = 1;
-        panel.add(memberIdField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 1;
-        panel.add(new JLabel("Book ID:"), gbc);
-        gbc.gridx = 1;
-        panel.add(bookIdField, gbc);
-
-        int result = JOptionPane.showConfirmDialog(this, panel, "Issue Book", 
-                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-
-        if (result == JOptionPane.OK_OPTION) {
-            try {
-                int memberId = Integer.parseInt(memberIdField.getText());
-                int bookId = Integer.parseInt(bookIdField.getText());
-                transactionService.issueBook(memberId, bookId);
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid ID. Please enter valid numbers.", 
-                                            "Input Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    private void showReturnBookDialog() {
-        String input = JOptionPane.showInputDialog(this, "Enter Transaction ID:", "Return Book", 
-                                                 JOptionPane.PLAIN_MESSAGE);
-        if (input != null) {
-            try {
-                int transactionId = Integer.parseInt(input);
-                transactionService.returnBook(transactionId);
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid Transaction ID. Please enter a number.", 
-                                            "Input Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    private void showOverdueBooks() {
-        List<Object[]> overdueBooks = bookService.getOverdueBooks();
-        
-        if (overdueBooks.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No overdue books found!", "Overdue Books", 
-                                        JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        String[] columnNames = {"Transaction ID", "Book Title", "Member Name", "Issue Date", "Due Date", "Days Overdue","Fine"};
-        DefaultTableModel model = new DefaultTableModel(columnNames, 0);
-
-        for (Object[] row : overdueBooks) {
-            model.addRow(row);
-        }
-
-        JTable table = new JTable(model);
-        table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
-        JScrollPane scrollPane = new JScrollPane(table);
-        scrollPane.setPreferredSize(new Dimension(800, 300));
-
-        JOptionPane.showMessageDialog(this, scrollPane, "Overdue Books (" + overdueBooks.size() + " found)", 
-                                    JOptionPane.WARNING_MESSAGE);
-    }
-
-    public static void main(String[] args) {
-        // Set Look and Feel
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            // Use default look and feel
-        }
-
-        SwingUtilities.invokeLater(() -> new LibraryManagement().setVisible(true));
-    }
+package com.gui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class LibraryManagement extends JFrame {
+
+    private final BookService bookService = new BookService();
+    private final MemberService memberService = new MemberService();
+    private final TransactionService transactionService = new TransactionService();
+    // Circulation goes through a CirculationServer when library.server is set
+    private final LibraryApi api = LibraryApi.configured();
+    private final TaskRunner taskRunner = TaskRunner.shared();
+    private final BulkImporter bulkImporter = new BulkImporter();
+    private final DataExporter dataExporter = new DataExporter();
+    // Offered as the starting point of the next incremental transaction export
+    private volatile int lastExportedTransactionId;
+    // Touched on the EDT only
+    private boolean statsRequestRunning;
+
+    public LibraryManagement() {
+        setTitle("Library Management System" + (api.isRemote() ? " (server: " + System.getProperty("library.server") + ")" : ""));
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(800, 600);
+        setLocationRelativeTo(null);
+
+        createMenuBar();
+        if (!api.isRemote()) {
+            // With a server, it owns the database connection and the statistics
+            taskRunner.submit("startup", "Connecting to database", this::startUp);
+        }
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+
+        // 💡 Use vertical Box container for image + welcome text
+        Box centerBox = Box.createVerticalBox();
+        centerBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        try { 	
+            ImageIcon logoIcon = new ImageIcon("logo.png");
+            Image image = logoIcon.getImage().getScaledInstance(150, 150, Image.SCALE_SMOOTH);
+            JLabel logoLabel = new JLabel(new ImageIcon(image));
+            logoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            centerBox.add(Box.createVerticalStrut(20));
+            centerBox.add(logoLabel);
+            System.out.println(new File("logo.png").exists());
+            System.out.println("Logo added!");
+        } catch (Exception e) {
+            System.err.println("Logo not found: " + e.getMessage());
+        }
+
+        JLabel welcomeLabel = new JLabel("Welcome to Library Management System", JLabel.CENTER);
+        welcomeLabel.setFont(new Font("Times New Roman", Font.BOLD, 30));
+        welcomeLabel.setForeground(Color.BLUE);
+        welcomeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        centerBox.add(Box.createVerticalStrut(20)); // spacing
+        centerBox.add(welcomeLabel);
+
+        // 📦 Wrap the box in a panel so BorderLayout.CENTER works nicely
+        JPanel centerPanel = new JPanel();
+        centerPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
+        centerPanel.add(centerBox);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(createStatsPanel(), BorderLayout.CENTER);
+        bottomPanel.add(createStatusBar(), BorderLayout.SOUTH);
+
+        mainPanel.add(centerPanel, BorderLayout.CENTER);
+        mainPanel.add(bottomPanel, BorderLayout.SOUTH);
+        add(mainPanel);
+    }
+
+    // Runs in the background while the window is shown
+    private void startUp() {
+        try {
+            long start = System.nanoTime();
+            DatabaseConnection.warmUp();
+            if (Boolean.parseBoolean(System.getProperty("library.schema.autoMigrate", "true"))) {
+                SchemaManager.migrateAndVerify();
+            }
+            System.out.println("Database ready (" + DatabaseConnection.dialect() + ") in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.err.println("Database startup failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+        try {
+            memberService.loadEmailFilter();
+        } catch (Exception e) {
+            System.err.println("Member email filter not loaded: " + e.getMessage());
+        }
+        LibraryStats.shared().start();
+        try {
+            CatalogSearchIndex.shared().build();
+            CatalogSearchIndex.shared().start();
+        } catch (Exception e) {
+            System.err.println("Catalog search index not built, searching with LIKE: " + e.getMessage());
+        }
+    }
+
+    private JPanel createStatusBar() {
+        JPanel panel = new JPanel(new BorderLayout(8, 0));
+        panel.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+
+        JLabel statusLabel = new JLabel("Ready");
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setVisible(false);
+        cancelButton.addActionListener(e -> taskRunner.cancelAll());
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 6, 0));
+        right.add(progressBar);
+        right.add(cancelButton);
+        panel.add(statusLabel, BorderLayout.CENTER);
+        panel.add(right, BorderLayout.EAST);
+
+        taskRunner.addActivityListener(tasks -> {
+            boolean busy = !tasks.isEmpty();
+            statusLabel.setText(busy ? String.join(", ", tasks) + "..." : "Ready");
+            progressBar.setVisible(busy);
+            cancelButton.setVisible(taskRunner.hasCancellableTasks());
+            setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+        });
+        return panel;
+    }
+
+
+    // Counters come from memory (or the server), so the panel can refresh every second
+    private JPanel createStatsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(0, 4));
+        panel.setBorder(BorderFactory.createTitledBorder("Quick Stats"));
+
+        String[] captions = {"Titles", "Copies", "Available", "Active loans",
+                             "Overdue loans", "Outstanding fines", "Issued today", "Returned today"};
+        JLabel[] values = new JLabel[captions.length];
+        JPanel tiles = new JPanel(new GridLayout(2, 4, 12, 6));
+        for (int i = 0; i < captions.length; i++) {
+            JLabel caption = new JLabel(captions[i], JLabel.CENTER);
+            values[i] = new JLabel("-", JLabel.CENTER);
+            values[i].setFont(values[i].getFont().deriveFont(Font.BOLD, 18f));
+            JPanel tile = new JPanel(new BorderLayout());
+            tile.add(values[i], BorderLayout.CENTER);
+            tile.add(caption, BorderLayout.SOUTH);
+            tiles.add(tile);
+        }
+
+        JLabel reconciledLabel = new JLabel(" ");
+        JButton refreshButton = new JButton("Refresh Stats");
+        refreshButton.addActionListener(e -> updateStats(values, reconciledLabel));
+        JPanel footer = new JPanel(new BorderLayout());
+        footer.add(reconciledLabel, BorderLayout.CENTER);
+        footer.add(refreshButton, BorderLayout.EAST);
+
+        panel.add(tiles, BorderLayout.CENTER);
+        panel.add(footer, BorderLayout.SOUTH);
+
+        Timer timer = new Timer(api.isRemote() ? 5_000 : 1_000, e -> pollStats(values, reconciledLabel));
+        timer.setInitialDelay(0);
+        timer.start();
+        return panel;
+    }
+
+    // Remote reads go off the EDT; one request at a time
+    private void pollStats(JLabel[] values, JLabel reconciledLabel) {
+        if (!api.isRemote()) {
+            showStats(api.getStats(), values, reconciledLabel);
+            return;
+        }
+        if (statsRequestRunning) {
+            return;
+        }
+        statsRequestRunning = true;
+        Thread.startVirtualThread(() -> {
+            LibraryStats.Snapshot stats = null;
+            try {
+                stats = api.getStats();
+            } catch (LibraryException e) {
+                System.err.println("Could not read statistics: " + e.getMessage());
+            }
+            LibraryStats.Snapshot result = stats;
+            SwingUtilities.invokeLater(() -> {
+                statsRequestRunning = false;
+                if (result != null) {
+                    showStats(result, values, reconciledLabel);
+                }
+            });
+        });
+    }
+
+    // Recounts from the database; with a server, fetches its current counters instead
+    private void updateStats(JLabel[] values, JLabel reconciledLabel) {
+        taskRunner.submit("refresh-stats", "Refreshing statistics",
+                () -> api.isRemote() ? api.getStats() : LibraryStats.shared().reconcile(),
+                stats -> showStats(stats, values, reconciledLabel));
+    }
+
+    private void showStats(LibraryStats.Snapshot stats, JLabel[] values, JLabel reconciledLabel) {
+        if (stats.reconciledAt() == null) {
+            reconciledLabel.setText("Counting...");
+            return;
+        }
+        long[] numbers = {stats.titles(), stats.copies(), stats.availableCopies(), stats.activeLoans(),
+                          stats.overdueLoans(), stats.outstandingFines(), stats.issuedToday(), stats.returnedToday()};
+        for (int i = 0; i < numbers.length; i++) {
+            values[i].setText(i == 5 ? String.format("₹%,d", numbers[i]) : String.format("%,d", numbers[i]));
+        }
+        reconciledLabel.setText("Checked against the database at "
+                + LocalTime.ofInstant(stats.reconciledAt(), ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private void createMenuBar() {
+        JMenuBar menuBar = new JMenuBar();
+
+        // Books Menu
+        JMenu bookMenu = new JMenu("Books");
+        JMenuItem viewBooks = new JMenuItem("View Books");
+        JMenuItem addBook = new JMenuItem("Add Book");
+        JMenuItem searchBooks = new JMenuItem("Search Books...");
+        JMenuItem importBooks = new JMenuItem("Import Books (CSV)...");
+
+        viewBooks.addActionListener(e -> showTable("view-books", "Books List", bookService::createBooksModel, null));
+        addBook.addActionListener(e -> showAddBookDialog());
+        searchBooks.addActionListener(e -> showSearchBooksDialog());
+        importBooks.addActionListener(e -> importCsv("books", bulkImporter::importBooks));
+
+        bookMenu.add(viewBooks);
+        bookMenu.add(addBook);
+        bookMenu.add(searchBooks);
+        bookMenu.addSeparator();
+        bookMenu.add(importBooks);
+
+        // Members Menu
+        JMenu memberMenu = new JMenu("Members");
+        JMenuItem viewMembers = new JMenuItem("View Members");
+        JMenuItem addMember = new JMenuItem("Add Member");
+        JMenuItem importMembers = new JMenuItem("Import Members (CSV)...");
+
+        viewMembers.addActionListener(e -> showTable("view-members", "Members List", memberService::createMembersModel, null));
+        addMember.addActionListener(e -> showAddMemberDialog());
+        importMembers.addActionListener(e -> importCsv("members", bulkImporter::importMembers));
+
+        memberMenu.add(viewMembers);
+        memberMenu.add(addMember);
+        memberMenu.addSeparator();
+        memberMenu.add(importMembers);
+
+        // Transactions Menu
+        JMenu transactionMenu = new JMenu("Transactions");
+        JMenuItem viewTransactions = new JMenuItem("View Transactions");
+        JMenuItem overdueBooks = new JMenuItem("Overdue Books"); // Fixed: declare the variable
+        JMenuItem issueBook = new JMenuItem("Issue Book");
+        JMenuItem returnBook = new JMenuItem("Return Book");
+
+        viewTransactions.addActionListener(e -> showTable("view-transactions", "Transactions List",
+                transactionService::createTransactionsModel, new Dimension(800, 400)));
+        overdueBooks.addActionListener(e -> showOverdueBooks());
+        issueBook.addActionListener(e -> showIssueBookDialog());
+        returnBook.addActionListener(e -> showReturnBookDialog());
+
+        transactionMenu.add(viewTransactions);
+        transactionMenu.add(overdueBooks);
+        transactionMenu.addSeparator();
+        transactionMenu.add(issueBook);
+        transactionMenu.add(returnBook);
+
+        menuBar.add(bookMenu);
+        menuBar.add(memberMenu);
+        menuBar.add(transactionMenu);
+        menuBar.add(createDataMenu());
+
+        setJMenuBar(menuBar);
+    }
+
+    private JMenu createDataMenu() {
+        JMenu dataMenu = new JMenu("Data");
+        JMenuItem exportBooks = new JMenuItem("Export Books...");
+        JMenuItem exportMembers = new JMenuItem("Export Members...");
+        JMenuItem exportTransactions = new JMenuItem("Export Transactions...");
+
+        exportBooks.addActionListener(e -> exportData("books", dataExporter::exportBooks));
+        exportMembers.addActionListener(e -> exportData("members", dataExporter::exportMembers));
+        exportTransactions.addActionListener(e -> showExportTransactionsDialog());
+
+        dataMenu.add(exportBooks);
+        dataMenu.add(exportMembers);
+        dataMenu.add(exportTransactions);
+        return dataMenu;
+    }
+
+    private interface Export {
+        DataExporter.ExportResult run(Path file, DataExporter.Format format) throws Exception;
+    }
+
+    private void showExportTransactionsDialog() {
+        String input = JOptionPane.showInputDialog(this,
+                "Export transactions after Transaction ID (0 for the full history):", lastExportedTransactionId);
+        if (input == null) {
+            return;
+        }
+        try {
+            int afterId = Integer.parseInt(input.trim());
+            exportData("transactions", (file, format) -> {
+                DataExporter.ExportResult result = dataExporter.exportTransactions(file, format, afterId);
+                lastExportedTransactionId = result.lastId();
+                return result;
+            });
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid Transaction ID!", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void exportData(String what, Export export) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export " + what);
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or JSON Lines", "csv", "jsonl"));
+        chooser.setSelectedFile(new File(what + ".csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        taskRunner.submit("export-" + what, "Exporting " + what + " to " + file.getFileName(),
+                () -> export.run(file, DataExporter.Format.forFile(file)),
+                result -> JOptionPane.showMessageDialog(this, "Export finished: " + result
+                        + (result.rows() > 0 && what.equals("transactions")
+                                ? "\nLast Transaction ID: " + result.lastId() : ""),
+                        "Export " + what, JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    private void showAddBookDialog() {
+        JTextField titleField = new JTextField(20);
+        JTextField authorField = new JTextField(20);
+        JTextField qtyField = new JTextField(10);
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("Book Title:"), gbc);
+        gbc.gridx = 1;
+        panel.add(titleField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(new JLabel("Author:"), gbc);
+        gbc.gridx = 1;
+        panel.add(authorField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JLabel("Quantity:"), gbc);
+        gbc.gridx = 1;
+        panel.add(qtyField, gbc);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add Book", 
+                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                String title = titleField.getText();
+                String author = authorField.getText();
+                int qty = Integer.parseInt(qtyField.getText());
+                taskRunner.submit("add-book", "Adding book", () -> api.addBook(title, author, qty),
+                        bookId -> JOptionPane.showMessageDialog(this, "Book added successfully.\nBook ID = " + bookId));
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid quantity. Please enter a number.", 
+                                            "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void showAddMemberDialog() {
+        JTextField nameField = new JTextField(20);
+        JTextField emailField = new JTextField(20);
+        JTextField phoneField = new JTextField(15);
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("Name:"), gbc);
+        gbc.gridx = 1;
+        panel.add(nameField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(new JLabel("Email:"), gbc);
+        gbc.gridx = 1;
+        panel.add(emailField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JLabel("Phone:"), gbc);
+        gbc.gridx = 1;
+        panel.add(phoneField, gbc);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add Member", 
+                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String name = nameField.getText();
+            String email = emailField.getText();
+            String phone = phoneField.getText();
+            
+            if (name != null && !name.trim().isEmpty() && 
+                email != null && !email.trim().isEmpty() && 
+                phone != null && !phone.trim().isEmpty()) {
+                
+                // Validate phone number
+                if (!phone.matches("\\d{10}")) {
+                    JOptionPane.showMessageDialog(this, "Phone number must be exactly 10 digits.", 
+                                                "Input Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                
+                // Validate email format
+                if (!email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+                    JOptionPane.showMessageDialog(this, "Invalid email format.", 
+                                                "Input Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                
+                // Add member with all details
+                taskRunner.submit("add-member", "Adding member", () -> memberService.addMember(name, email, phone),
+                        memberId -> JOptionPane.showMessageDialog(this, "Member added successfully.\nMember ID = " + memberId));
+            } else {
+                JOptionPane.showMessageDialog(this, "All fields are required.", 
+                                            "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // Searches as the user types, a moment after the last keystroke
+    private void showSearchBooksDialog() {
+        JDialog dialog = new JDialog(this, "Search Books", false);
+        JTextField queryField = new JTextField(30);
+        JLabel resultLabel = new JLabel("Type words from a title or author; partial words match too.");
+        DefaultTableModel model = new DefaultTableModel(new String[]{"BookID", "Title", "Author", "Available", "Total"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        Timer searchTimer = new Timer(150, null);
+        searchTimer.addActionListener(e -> searchBooks(queryField, model, resultLabel, searchTimer));
+        searchTimer.setRepeats(false);
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+
+        JPanel queryPanel = new JPanel(new BorderLayout(6, 0));
+        queryPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        queryPanel.add(queryField, BorderLayout.CENTER);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 6));
+        panel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        panel.add(queryPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        panel.add(resultLabel, BorderLayout.SOUTH);
+
+        dialog.add(panel);
+        dialog.setSize(720, 400);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    private void searchBooks(JTextField queryField, DefaultTableModel model, JLabel resultLabel, Timer searchTimer) {
+        String query = queryField.getText();
+        if (query.isBlank()) {
+            model.setRowCount(0);
+            resultLabel.setText(" ");
+            return;
+        }
+        long start = System.nanoTime();
+        // If a search is still running this one is dropped; the running one re-checks the text when it ends
+        taskRunner.load("search-books", "Searching books", () -> api.searchBooks(query, 200), books -> {
+            model.setRowCount(0);
+            for (BookCache.BookRecord book : books) {
+                model.addRow(new Object[]{book.bookId(), book.title(), book.author(), book.available(), book.total()});
+            }
+            String summary = books.size() + (books.size() == 200 ? "+" : "") + " found in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms";
+            if (!api.isRemote() && CatalogSearchIndex.shared().isReady()) {
+                summary += "   (index: " + CatalogSearchIndex.shared().stats() + ")";
+            }
+            resultLabel.setText(summary);
+            if (!query.equals(queryField.getText())) {
+                searchTimer.restart();
+            }
+        });
+    }
+
+    private void showIssueBookDialog() {
+        JTextField memberIdField = new JTextField(10);
+        JTextField bookIdField = new JTextField(10);
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("Member ID:"), gbc);
+        gbc.gridx = 1;
+        panel.add(memberIdField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(new JLabel("Book ID(s):"), gbc);
+        gbc.gridx = 1;
+        panel.add(bookIdField, gbc);
+        bookIdField.setToolTipText("Separate several Book IDs with commas to issue them together");
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Issue Book", 
+                                                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                int memberId = Integer.parseInt(memberIdField.getText().trim());
+                List<Integer> bookIds = parseIds(bookIdField.getText());
+                if (bookIds.size() == 1) {
+                    int bookId = bookIds.get(0);
+                    taskRunner.submit("issue:" + memberId + ":" + bookId, "Issuing book",
+                            () -> api.issueBook(memberId, bookId),
+                            issued -> showIssueResult(issued, memberId, bookId));
+                } else {
+                    taskRunner.submit("issue:" + memberId + ":" + bookIds, "Issuing " + bookIds.size() + " books",
+                            () -> api.issueBooks(memberId, bookIds),
+                            issued -> showIssueResults(issued, memberId));
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid ID. Please enter valid numbers.", 
+                                            "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void showReturnBookDialog() {
+        String input = JOptionPane.showInputDialog(this, "Enter Transaction ID(s), separated by commas:", "Return Book", 
+                                                 JOptionPane.PLAIN_MESSAGE);
+        if (input != null) {
+            try {
+                List<Integer> transactionIds = parseIds(input);
+                if (transactionIds.size() == 1) {
+                    int transactionId = transactionIds.get(0);
+                    taskRunner.submit("return:" + transactionId, "Returning book",
+                            () -> api.returnBook(transactionId), this::showReturnResult);
+                } else {
+                    taskRunner.submit("return:" + transactionIds, "Returning " + transactionIds.size() + " books",
+                            () -> api.returnBooks(transactionIds), this::showReturnResults);
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid Transaction ID. Please enter a number.", 
+                                            "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void showIssueResult(IssueResult result, int memberId, int bookId) {
+        if (result.status() != CirculationStatus.OK) {
+            JOptionPane.showMessageDialog(this, issueFailureMessage(result.status(), memberId, bookId),
+                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this, "Book issued successfully.\nTransaction ID = " + result.transactionId()
+                + "\nDue Date: " + result.dueDate());
+    }
+
+    private void showIssueResults(Map<Integer, IssueResult> results, int memberId) {
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Book ID", "Outcome", "Transaction ID", "Due Date"}, 0);
+        int issued = 0;
+        for (Map.Entry<Integer, IssueResult> entry : results.entrySet()) {
+            IssueResult result = entry.getValue();
+            if (result.status() == CirculationStatus.OK) {
+                issued++;
+                model.addRow(new Object[]{entry.getKey(), "Issued", result.transactionId(), result.dueDate()});
+            } else {
+                model.addRow(new Object[]{entry.getKey(), issueFailureMessage(result.status(), memberId, entry.getKey()), "", ""});
+            }
+        }
+        showBatchTable(model, "Issued " + issued + " of " + results.size() + " books to member " + memberId,
+                issued == results.size());
+    }
+
+    private void showReturnResults(Map<Integer, ReturnResult> results) {
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Transaction ID", "Outcome", "Days Overdue", "Fine"}, 0);
+        int returned = 0;
+        int totalFine = 0;
+        for (Map.Entry<Integer, ReturnResult> entry : results.entrySet()) {
+            ReturnResult result = entry.getValue();
+            if (result.status() == CirculationStatus.OK) {
+                returned++;
+                totalFine += result.fine();
+                model.addRow(new Object[]{entry.getKey(), "Returned", result.daysOverdue(), "₹" + result.fine()});
+            } else {
+                model.addRow(new Object[]{entry.getKey(), "Invalid transaction ID or book already returned.", "", ""});
+            }
+        }
+        showBatchTable(model, "Returned " + returned + " of " + results.size() + " books, total fine ₹" + totalFine,
+                returned == results.size());
+    }
+
+    private void showBatchTable(DefaultTableModel model, String summary, boolean allSucceeded) {
+        JTable table = new JTable(model);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(600, Math.min(60 + 20 * model.getRowCount(), 300)));
+        JOptionPane.showMessageDialog(this, scrollPane, summary,
+                allSucceeded ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+
+    /** Parses IDs separated by commas or spaces; throws NumberFormatException if none or any is not a number. */
+    private static List<Integer> parseIds(String text) {
+        List<Integer> ids = new ArrayList<>();
+        for (String part : text.trim().split("[,\\s]+")) {
+            if (!part.isEmpty()) {
+                ids.add(Integer.parseInt(part));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new NumberFormatException("No IDs entered");
+        }
+        return ids;
+    }
+
+    private static String issueFailureMessage(CirculationStatus status, int memberId, int bookId) {
+        return switch (status) {
+            case MEMBER_NOT_FOUND -> "Member ID " + memberId + " does not exist.";
+            case BOOK_NOT_FOUND -> "Book ID " + bookId + " does not exist.";
+            case NOT_AVAILABLE -> "Book is not available for issue.";
+            case ALREADY_ISSUED -> "Member already has this book issued.";
+            default -> "Book could not be issued.";
+        };
+    }
+
+    private void showReturnResult(ReturnResult result) {
+        if (result.status() != CirculationStatus.OK) {
+            JOptionPane.showMessageDialog(this, "Invalid transaction ID or book already returned.",
+                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String message = "Book returned successfully.";
+        if (result.fine() > 0) {
+            message += "\nFine: ₹" + result.fine() + " (" + result.daysOverdue() + " days overdue)";
+        } else {
+            message += "\nNo fine (returned on time)";
+        }
+        JOptionPane.showMessageDialog(this, message);
+    }
+
+    private void importCsv(String what, BulkImporter.Import importer) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import " + what);
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        taskRunner.submit("import-" + what, "Importing " + what + " from " + file.getFileName(),
+                () -> importer.run(file), result -> {
+                    String message = "Import finished: " + result;
+                    if (result.rejectsFile() != null) {
+                        message += "\nRejected rows were written to " + result.rejectsFile();
+                    }
+                    JOptionPane.showMessageDialog(this, message, "Import " + what,
+                            result.rejected() == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                });
+    }
+
+    private void showTable(String key, String title, Supplier<PagedTableModel> factory, Dimension size) {
+        taskRunner.load(key, "Loading " + title, () -> {
+            PagedTableModel model = factory.get();
+            model.loadRowCount();
+            return model;
+        }, model -> {
+            JTable table = model.createTable();
+            JScrollPane scrollPane = new JScrollPane(table);
+            if (size != null) {
+                table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+                scrollPane.setPreferredSize(size);
+            }
+            JOptionPane.showMessageDialog(this, scrollPane, title, JOptionPane.INFORMATION_MESSAGE);
+            model.close();
+        });
+    }
+
+    private void showOverdueBooks() {
+        taskRunner.load("overdue-books", "Loading overdue books", api::getOverdueSnapshot,
+                this::showOverdueBooks);
+    }
+
+    private void showOverdueBooks(OverdueSnapshot overdueBooks) {
+        if (overdueBooks.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No overdue books found!", "Overdue Books", 
+                                        JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        OverdueTableModel model = OverdueTableModel.overdueList();
+        model.setSnapshot(overdueBooks);
+
+        JTable table = new JTable(model);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(800, 300));
+
+        JOptionPane.showMessageDialog(this, scrollPane, "Overdue Books (" + overdueBooks.size() + " found)", 
+                                    JOptionPane.WARNING_MESSAGE);
+    }
+
+    public static void main(String[] args) {
+        // Set Look and Feel
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            // Use default look and feel
+        }
+
+        EdtWatchdog.startIfEnabled(InstrumentedEventQueue.install());
+        Metrics.shared().startReporting();
+        SwingUtilities.invokeLater(() -> new LibraryManagement().setVisible(true));
+    }
 }
\ No newline at end of file
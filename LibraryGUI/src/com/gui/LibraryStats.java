@@ -0,0 +1,225 @@
+package com.gui;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live catalog and circulation counters for the dashboard. The services adjust them as
+ * books are added, issued and returned, so reading them costs nothing. {@link #reconcile()}
+ * reloads them from the database with a few indexed queries; it runs at startup, every
+ * {@code library.stats.reconcileMs} and after midnight, to pick up changes made elsewhere
+ * (other desks, imports, seeding) and loans that have become overdue.
+ */
+public class LibraryStats {
+
+    private static final LibraryStats SHARED = new LibraryStats();
+    private static final Metrics.Operation RECONCILE = Metrics.shared().operation("statsReconcile");
+
+    private static final int TITLES = 0;
+    private static final int COPIES = 1;
+    private static final int AVAILABLE = 2;
+    private static final int ACTIVE_LOANS = 3;
+    private static final int OVERDUE_LOANS = 4;
+    private static final int OUTSTANDING_FINES = 5;
+    private static final int ISSUED_TODAY = 6;
+    private static final int RETURNED_TODAY = 7;
+    private static final int COUNTERS = 8;
+
+    /**
+     * Counter values at one moment. Outstanding fines are what open overdue loans would owe
+     * if returned today. {@code reconciledAt} is null until the first reconciliation.
+     */
+    public record Snapshot(long titles, long copies, long availableCopies, long activeLoans, long overdueLoans,
+                           long outstandingFines, long issuedToday, long returnedToday, LocalDate day,
+                           Instant reconciledAt) {
+    }
+
+    private final long reconcileMillis = Long.getLong("library.stats.reconcileMs", 300_000);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "library-stats");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object reconcileLock = new Object();
+
+    // Guarded by this
+    private final long[] counts = new long[COUNTERS];
+    private long[] changedDuringReconcile;
+    private LocalDate day = LocalDate.now();
+    private Instant reconciledAt;
+
+    public static LibraryStats shared() {
+        return SHARED;
+    }
+
+    /** Reconciles now and then every {@code library.stats.reconcileMs} on a background thread. */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::reconcileQuietly, 0, reconcileMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized void bookAdded(int copies) {
+        rollDay();
+        add(TITLES, 1);
+        add(COPIES, copies);
+        add(AVAILABLE, copies);
+    }
+
+    public synchronized void loansIssued(int loans) {
+        rollDay();
+        add(AVAILABLE, -loans);
+        add(ACTIVE_LOANS, loans);
+        add(ISSUED_TODAY, loans);
+    }
+
+    /** Records one returned loan; {@code restocked} is false when the copy was not put back on the shelf. */
+    public synchronized void loanReturned(boolean restocked, long daysOverdue, int fine) {
+        rollDay();
+        if (restocked) {
+            add(AVAILABLE, 1);
+        }
+        add(ACTIVE_LOANS, -1);
+        add(RETURNED_TODAY, 1);
+        if (daysOverdue > 0) {
+            add(OVERDUE_LOANS, -1);
+            add(OUTSTANDING_FINES, -fine);
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        rollDay();
+        return new Snapshot(counts[TITLES], counts[COPIES], counts[AVAILABLE], counts[ACTIVE_LOANS],
+                counts[OVERDUE_LOANS], counts[OUTSTANDING_FINES], counts[ISSUED_TODAY], counts[RETURNED_TODAY],
+                day, reconciledAt);
+    }
+
+    /**
+     * Reloads every counter from the database. The queries read one REPEATABLE READ snapshot,
+     * and only changes recorded after that snapshot was taken are applied on top, so
+     * concurrent issues and returns are neither lost nor counted twice. The exception is a
+     * call that commits just before the snapshot and records its change just after it. That
+     * can be off by one until the next reconcile.
+     */
+    public Snapshot reconcile() throws SQLException, ClassNotFoundException {
+        synchronized (reconcileLock) {
+            LocalDate today = LocalDate.now();
+            long[] fresh = new long[COUNTERS];
+            Metrics.Timer timer = RECONCILE.start();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                int isolation = conn.getTransactionIsolation();
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                try {
+                    openSnapshot(conn);
+                    synchronized (this) {
+                        changedDuringReconcile = new long[COUNTERS];
+                    }
+                    load(conn, today, fresh);
+                    conn.commit();
+                } finally {
+                    conn.rollback();
+                    conn.setTransactionIsolation(isolation);
+                }
+            } catch (SQLException | ClassNotFoundException e) {
+                synchronized (this) {
+                    changedDuringReconcile = null;
+                }
+                throw e;
+            } finally {
+                timer.close();
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < COUNTERS; i++) {
+                    counts[i] = fresh[i] + changedDuringReconcile[i];
+                }
+                changedDuringReconcile = null;
+                day = today;
+                reconciledAt = Instant.now();
+                return snapshot();
+            }
+        }
+    }
+
+    // The first read fixes what the transaction sees; touch both tables at once, cheaply
+    private static void openSnapshot(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeQuery("SELECT (SELECT COUNT(*) FROM books WHERE BookID = 0), "
+                    + "(SELECT COUNT(*) FROM transactions WHERE TransactionID = 0)").close();
+        }
+    }
+
+    private static void load(Connection conn, LocalDate today, long[] fresh) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COALESCE(SUM(Total), 0), COALESCE(SUM(Available), 0) FROM books");
+            rs.next();
+            fresh[TITLES] = rs.getLong(1);
+            fresh[COPIES] = rs.getLong(2);
+            fresh[AVAILABLE] = rs.getLong(3);
+
+            rs = stmt.executeQuery("SELECT COUNT(*) FROM transactions WHERE Status = 'ISSUED'");
+            rs.next();
+            fresh[ACTIVE_LOANS] = rs.getLong(1);
+        }
+
+        // One row per due date, so the fine engine is asked once per bucket
+        String overdue = "SELECT DueDate, COUNT(*) FROM transactions WHERE Status = 'ISSUED' AND DueDate < ? GROUP BY DueDate";
+        FineEngine fines = FineEngine.shared();
+        try (PreparedStatement ps = conn.prepareStatement(overdue)) {
+            ps.setDate(1, Date.valueOf(today));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                long loans = rs.getLong(2);
+                fresh[OVERDUE_LOANS] += loans;
+                fresh[OUTSTANDING_FINES] += loans * fines.assess(rs.getDate(1).toLocalDate(), today).fine();
+            }
+        }
+
+        fresh[ISSUED_TODAY] = countOn(conn, "SELECT COUNT(*) FROM transactions WHERE IssueDate = ?", today);
+        fresh[RETURNED_TODAY] = countOn(conn, "SELECT COUNT(*) FROM transactions WHERE ReturnDate = ?", today);
+    }
+
+    private static long countOn(Connection conn, String sql, LocalDate date) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(date));
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void add(int counter, long delta) {
+        counts[counter] += delta;
+        if (changedDuringReconcile != null) {
+            changedDuringReconcile[counter] += delta;
+        }
+    }
+
+    // Called with the lock held: a new day starts the daily counts over and makes loans overdue
+    private void rollDay() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(day)) {
+            day = today;
+            counts[ISSUED_TODAY] = 0;
+            counts[RETURNED_TODAY] = 0;
+            if (!executor.isShutdown()) {
+                executor.execute(this::reconcileQuietly);
+            }
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            System.err.println("Statistics reconciliation failed: " + e.getMessage());
+        }
+    }
+}
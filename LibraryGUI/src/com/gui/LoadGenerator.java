@@ -0,0 +1,336 @@
+package com.gui;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates many circulation desks working against one database at once and then checks
+ * that the inventory is still consistent. Each desk is a thread running a weighted mix of
+ * issues, returns, searches and overdue listings through the services. The report gives
+ * throughput, latency percentiles and how often each call was rejected (a normal business
+ * outcome such as "no copy left") or aborted (an exception, e.g. a deadlock or lock timeout).
+ * <p>
+ * Afterwards it verifies that every book has {@code 0 <= Available <= Total}, that no
+ * member holds two open loans of the same book, and that {@code Available} equals
+ * {@code Total} minus the book's open loans. It exits with status 1 if any check fails.
+ * <pre>
+ * java -Dlibrary.db.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1 -Dlibrary.db.driver=org.h2.Driver \
+ *      com.gui.LoadGenerator --desks=16 --duration=30 --mix=issue=40,return=30,search=20,overdue=10 --hotBooks=20
+ * </pre>
+ */
+public class LoadGenerator {
+
+    @FunctionalInterface
+    private interface Call {
+        /** Runs one call for a desk; returns false if it was rejected. */
+        boolean run(Random random) throws Exception;
+    }
+
+    private static final class CallStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder aborted = new LongAdder();
+    }
+
+    private static final int BATCH_ITEMS = 5;
+    private static final int SAMPLE_ROWS = 5;
+
+    private final BookService bookService = new BookService();
+    private final TransactionService transactionService = new TransactionService();
+    private final Map<String, Call> calls = new LinkedHashMap<>();
+    private final Map<String, CallStats> stats = new LinkedHashMap<>();
+    private final Map<String, LongAdder> abortReasons = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Integer> openLoans = new ConcurrentLinkedQueue<>();
+
+    private final int desks;
+    private final long durationMillis;
+    private final int hotBooks;
+    private final double repeatReturns;
+    private final long seed;
+    private String[] mixNames;
+    private int[] mixWeights;
+    private int bookCount;
+    private int memberCount;
+
+    /**
+     * @param hotBooks      if above 0, issues only pick among the first {@code hotBooks} books, so desks compete for copies
+     * @param repeatReturns fraction of returns whose loan stays queued, so another desk may try to return it again
+     */
+    public LoadGenerator(int desks, long durationMillis, String mix, int hotBooks, double repeatReturns, long seed) {
+        this.desks = desks;
+        this.durationMillis = durationMillis;
+        this.hotBooks = hotBooks;
+        this.repeatReturns = repeatReturns;
+        this.seed = seed;
+
+        calls.put("issue", random -> issue(transactionService.issueBook(randomMember(random), randomBook(random))));
+        calls.put("return", random -> {
+            Integer transactionId = takeLoan(random);
+            return transactionId == null
+                    ? issue(transactionService.issueBook(randomMember(random), randomBook(random)))
+                    : transactionService.returnBook(transactionId).status() == CirculationStatus.OK;
+        });
+        calls.put("issueBatch", random -> {
+            List<Integer> books = new ArrayList<>();
+            for (int i = 0; i < BATCH_ITEMS; i++) {
+                books.add(randomBook(random));
+            }
+            boolean allIssued = true;
+            for (IssueResult result : transactionService.issueBooks(randomMember(random), books).values()) {
+                allIssued &= issue(result);
+            }
+            return allIssued;
+        });
+        calls.put("returnBatch", random -> {
+            List<Integer> loans = new ArrayList<>();
+            Integer transactionId;
+            while (loans.size() < BATCH_ITEMS && (transactionId = takeLoan(random)) != null) {
+                loans.add(transactionId);
+            }
+            if (loans.isEmpty()) {
+                return true;
+            }
+            boolean allReturned = true;
+            for (ReturnResult result : transactionService.returnBooks(loans).values()) {
+                allReturned &= result.status() == CirculationStatus.OK;
+            }
+            return allReturned;
+        });
+        calls.put("search", random -> !bookService.searchBooks(
+                DataSeeder.WORDS[random.nextInt(DataSeeder.WORDS.length)], 20).isEmpty());
+        calls.put("overdue", random -> {
+            bookService.getOverdueSnapshot();
+            return true;
+        });
+        parseMix(mix);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                System.err.println("Ignoring argument " + arg);
+            }
+        }
+
+        int books = Integer.parseInt(options.getOrDefault("books", "10000"));
+        int members = Integer.parseInt(options.getOrDefault("members", "5000"));
+        int loans = Integer.parseInt(options.getOrDefault("loans", "20000"));
+        double overdue = Double.parseDouble(options.getOrDefault("overdue", "0.3"));
+        new DataSeeder(books, members, loans, overdue).seed();
+        CatalogSearchIndex.shared().build();
+
+        LoadGenerator generator = new LoadGenerator(
+                Integer.parseInt(options.getOrDefault("desks", "8")),
+                Long.parseLong(options.getOrDefault("duration", "30")) * 1000,
+                options.getOrDefault("mix", "issue=40,return=30,search=20,overdue=10"),
+                Integer.parseInt(options.getOrDefault("hotBooks", "0")),
+                Double.parseDouble(options.getOrDefault("repeatReturns", "0.05")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        generator.run();
+        int violations = generator.checkInvariants();
+        System.exit(violations == 0 ? 0 : 1);
+    }
+
+    public void run() throws Exception {
+        loadFixture();
+        System.out.printf("%d desks for %d s, mix %s%s%n", desks, durationMillis / 1000, mixDescription(),
+                hotBooks > 0 ? ", issuing from " + hotBooks + " hot books" : "");
+
+        long start = System.nanoTime();
+        long end = start + durationMillis * 1_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int desk = 0; desk < desks; desk++) {
+            Random random = new Random(seed + desk);
+            Thread thread = new Thread(() -> runDesk(random, end), "desk-" + desk);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report((System.nanoTime() - start) / 1e9);
+    }
+
+    /** Prints each failed invariant with a few offending rows; returns how many rows break one. */
+    public int checkInvariants() throws SQLException, ClassNotFoundException {
+        int violations = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            violations += check(stmt, "0 <= Available <= Total",
+                    "SELECT BookID, Available, Total FROM books WHERE Available < 0 OR Available > Total");
+            violations += check(stmt, "at most one open loan per member and book", """
+                SELECT MemberID, BookID, COUNT(*) FROM transactions
+                WHERE Status = 'ISSUED' GROUP BY MemberID, BookID HAVING COUNT(*) > 1
+            """);
+            violations += check(stmt, "Available = Total - open loans", """
+                SELECT b.BookID, b.Available, b.Total, COUNT(t.TransactionID) FROM books b
+                LEFT JOIN transactions t ON t.BookID = b.BookID AND t.Status = 'ISSUED'
+                GROUP BY b.BookID, b.Available, b.Total
+                HAVING b.Available <> b.Total - COUNT(t.TransactionID)
+            """);
+        }
+        System.out.println(violations == 0 ? "All invariants hold" : violations + " invariant violations");
+        return violations;
+    }
+
+    private void runDesk(Random random, long end) {
+        int totalWeight = mixWeights[mixWeights.length - 1];
+        while (System.nanoTime() < end) {
+            int pick = random.nextInt(totalWeight);
+            int index = 0;
+            while (mixWeights[index] <= pick) {
+                index++;
+            }
+            String name = mixNames[index];
+            CallStats callStats = stats.get(name);
+            long start = System.nanoTime();
+            try {
+                if (!calls.get(name).run(random)) {
+                    callStats.rejected.increment();
+                }
+            } catch (Exception e) {
+                callStats.aborted.increment();
+                String reason = e.getCause() != null ? e.getCause().getClass().getSimpleName() : e.getClass().getSimpleName();
+                abortReasons.computeIfAbsent(name + ": " + reason, key -> new LongAdder()).increment();
+            }
+            callStats.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private boolean issue(IssueResult result) {
+        if (result.status() != CirculationStatus.OK) {
+            return false;
+        }
+        openLoans.add(result.transactionId());
+        return true;
+    }
+
+    private Integer takeLoan(Random random) {
+        Integer transactionId = openLoans.poll();
+        if (transactionId != null && random.nextDouble() < repeatReturns) {
+            openLoans.add(transactionId);
+        }
+        return transactionId;
+    }
+
+    private int randomMember(Random random) {
+        return 1 + random.nextInt(memberCount);
+    }
+
+    private int randomBook(Random random) {
+        return 1 + random.nextInt(hotBooks > 0 ? Math.min(hotBooks, bookCount) : bookCount);
+    }
+
+    private void parseMix(String mix) {
+        List<String> names = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            if (!calls.containsKey(entry[0])) {
+                throw new IllegalArgumentException("Unknown call " + entry[0] + " (available: " + calls.keySet() + ")");
+            }
+            int weight = entry.length > 1 ? Integer.parseInt(entry[1]) : 1;
+            if (weight > 0) {
+                total += weight;
+                names.add(entry[0]);
+                weights.add(total);
+                stats.put(entry[0], new CallStats());
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one call with a positive weight");
+        }
+        mixNames = names.toArray(new String[0]);
+        mixWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private String mixDescription() {
+        StringBuilder description = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < mixNames.length; i++) {
+            description.append(i == 0 ? "" : ",").append(mixNames[i]).append('=').append(mixWeights[i] - previous);
+            previous = mixWeights[i];
+        }
+        return description.toString();
+    }
+
+    private void loadFixture() throws SQLException, ClassNotFoundException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT MAX(BookID) FROM books");
+            rs.next();
+            bookCount = rs.getInt(1);
+            rs = stmt.executeQuery("SELECT MAX(MemberID) FROM member");
+            rs.next();
+            memberCount = rs.getInt(1);
+            rs = stmt.executeQuery("SELECT TransactionID FROM transactions WHERE Status = 'ISSUED'");
+            while (rs.next()) {
+                openLoans.add(rs.getInt(1));
+            }
+        }
+    }
+
+    private void report(double seconds) throws ClassNotFoundException {
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "Call", "ops", "ops/s", "p50(us)", "p99(us)", "p999(us)", "max(us)", "rejected", "aborted");
+        long totalOps = 0;
+        long totalAborted = 0;
+        for (Map.Entry<String, CallStats> entry : stats.entrySet()) {
+            CallStats callStats = entry.getValue();
+            LatencyHistogram.Snapshot latency = callStats.latency.snapshot();
+            long ops = latency.count();
+            totalOps += ops;
+            totalAborted += callStats.aborted.sum();
+            System.out.printf("%-12s %10d %10.1f %10d %10d %10d %10d %9.2f%% %9.2f%%%n",
+                    entry.getKey(), ops, ops / seconds,
+                    latency.percentileNanos(50) / 1000, latency.percentileNanos(99) / 1000,
+                    latency.percentileNanos(99.9) / 1000, latency.maxNanos() / 1000,
+                    percent(callStats.rejected.sum(), ops), percent(callStats.aborted.sum(), ops));
+        }
+        System.out.printf("Total %d calls in %.1f s (%.1f/s), %.2f%% aborted%n",
+                totalOps, seconds, totalOps / seconds, percent(totalAborted, totalOps));
+        abortReasons.forEach((reason, count) -> System.out.println("  aborted " + reason + ": " + count.sum()));
+        System.out.println("Connection pool: " + DatabaseConnection.getPool().stats());
+    }
+
+    private static int check(Statement stmt, String invariant, String sql) throws SQLException {
+        int rows = 0;
+        List<String> samples = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                rows++;
+                if (samples.size() < SAMPLE_ROWS) {
+                    List<String> values = new ArrayList<>();
+                    for (int i = 1; i <= columns; i++) {
+                        values.add(rs.getString(i));
+                    }
+                    samples.add(String.join(", ", values));
+                }
+            }
+        }
+        System.out.println((rows == 0 ? "OK     " : "FAILED ") + invariant + (rows == 0 ? "" : ": " + rows + " rows"));
+        for (String sample : samples) {
+            System.out.println("         " + sample);
+        }
+        return rows;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+}
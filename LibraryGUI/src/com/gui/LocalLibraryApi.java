@@ -0,0 +1,57 @@
+package com.gui;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/** Runs the circulation operations in this JVM against the database. */
+public class LocalLibraryApi implements LibraryApi {
+
+    private final BookService bookService = new BookService();
+    private final TransactionService transactionService = new TransactionService();
+
+    @Override
+    public IssueResult issueBook(int memberId, int bookId) {
+        return transactionService.issueBook(memberId, bookId);
+    }
+
+    @Override
+    public ReturnResult returnBook(int transactionId) {
+        return transactionService.returnBook(transactionId);
+    }
+
+    @Override
+    public Map<Integer, IssueResult> issueBooks(int memberId, Collection<Integer> bookIds) {
+        return transactionService.issueBooks(memberId, bookIds);
+    }
+
+    @Override
+    public Map<Integer, ReturnResult> returnBooks(Collection<Integer> transactionIds) {
+        return transactionService.returnBooks(transactionIds);
+    }
+
+    @Override
+    public int addBook(String title, String author, int quantity) {
+        return bookService.addBook(title, author, quantity);
+    }
+
+    @Override
+    public List<BookCache.BookRecord> searchBooks(String query, int limit) {
+        return bookService.searchBooks(query, limit);
+    }
+
+    @Override
+    public OverdueSnapshot getOverdueSnapshot() {
+        return bookService.getOverdueSnapshot();
+    }
+
+    @Override
+    public LibraryStats.Snapshot getStats() {
+        return LibraryStats.shared().snapshot();
+    }
+
+    @Override
+    public boolean isRemote() {
+        return false;
+    }
+}
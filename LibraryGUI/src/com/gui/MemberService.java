@@ -1,141 +1,174 @@
-package com.gui;
-
-import java.sql.*;
-import java.time.LocalDate;
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-
-public class MemberService {
-
-    public void displayMembers() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            ResultSet rs = stmt.executeQuery("SELECT * FROM member");
-            JTable table = new JTable(buildTableModel(rs));
-            JOptionPane.showMessageDialog(null, new JScrollPane(table), "Members List", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public void addMember(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Member name cannot be empty.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Get email and phone from user
-        String email = JOptionPane.showInputDialog(null, "Enter Email Address:", "Member Details", JOptionPane.PLAIN_MESSAGE);
-        if (email == null || email.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Email address is required.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        String phone = JOptionPane.showInputDialog(null, "Enter Phone Number (10 digits):", "Member Details", JOptionPane.PLAIN_MESSAGE);
-        if (phone == null || phone.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Phone number is required.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Validate phone number
-        if (!phone.matches("\\d{10}")) {
-            JOptionPane.showMessageDialog(null, "Phone number must be exactly 10 digits.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Validate email format
-        if (!email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-            JOptionPane.showMessageDialog(null, "Invalid email format.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Check if member already exists
-        if (memberEmailExists(email.trim())) {
-            JOptionPane.showMessageDialog(null, "Member with this email already exists.", "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        String sql = "INSERT INTO member (Name, Email, Phone, Reg_Date) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, name.trim());
-            ps.setString(2, email.trim());
-            ps.setString(3, phone.trim());
-            ps.setDate(4, Date.valueOf(LocalDate.now()));
-            ps.executeUpdate();
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                int memberId = rs.getInt(1);
-                JOptionPane.showMessageDialog(null, "Member added successfully.\nMember ID = " + memberId);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public boolean memberExists(int memberId) {
-        String sql = "SELECT COUNT(*) FROM member WHERE MemberID = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, memberId);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    private boolean memberEmailExists(String email) {
-        String sql = "SELECT COUNT(*) FROM member WHERE LOWER(Email) = LOWER(?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, email);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    private DefaultTableModel buildTableModel(ResultSet rs) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
-        int columnCount = meta.getColumnCount();
-        DefaultTableModel model = new DefaultTableModel();
-
-        for (int i = 1; i <= columnCount; i++) {
-            model.addColumn(meta.getColumnName(i));
-        }
-
-        while (rs.next()) {
-            Object[] row = new Object[columnCount];
-            for (int i = 1; i <= columnCount; i++) {
-                row[i - 1] = rs.getObject(i);
-            }
-            model.addRow(row);
-        }
-        return model;
-    }
-
-    private void showError(Exception e) {
-        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        e.printStackTrace();
-    }
+package com.gui;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Member registration and lookups. Instances may be shared between threads; the
+ * email filter is shared by all of them. Failures are thrown as {@link LibraryException}.
+ */
+public class MemberService {
+
+    private static final Metrics.Operation ADD_MEMBER = Metrics.shared().operation("addMember");
+
+    // Shared by every MemberService; empty and unused until loadEmailFilter() finishes
+    private static volatile BloomFilter emailFilter = new BloomFilter(10_000, 0.01);
+    private static volatile boolean emailFilterReady;
+    // The filter only knows emails this JVM has seen, so a "no" is trusted only when the
+    // unique index would still reject an address registered at another desk
+    private static volatile boolean emailIndexUnique;
+
+    public PagedTableModel createMembersModel() {
+        return new PagedTableModel("member", "MemberID",
+            new PagedTableModel.Column("MemberID", "MemberID"),
+            new PagedTableModel.Column("Name", "Name"),
+            new PagedTableModel.Column("Email", "Email"),
+            new PagedTableModel.Column("Phone", "Phone"),
+            new PagedTableModel.Column("Reg_Date", "Reg_Date"));
+    }
+
+    /** Registers a member and returns the new MemberID. */
+    public int addMember(String name, String email, String phone) {
+        String error = validateMember(name, email, phone);
+        if (error != null) {
+            throw LibraryException.invalid(error);
+        }
+        String normalizedEmail = normalizeEmail(email);
+
+        String sql = "INSERT INTO member (Name, Email, Phone, Reg_Date) VALUES (?, ?, ?, ?)";
+        Metrics.Timer timer = ADD_MEMBER.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
+
+            if (emailExists(conn, normalizedEmail)) {
+                throw duplicateEmail();
+            }
+
+            ps.setString(1, name.trim());
+            ps.setString(2, normalizedEmail);
+            ps.setString(3, phone.trim());
+            ps.setDate(4, Date.valueOf(LocalDate.now()));
+            ps.executeUpdate();
+            emailFilter.add(normalizedEmail);
+            ResultSet rs = ps.getGeneratedKeys();
+            if (!rs.next()) {
+                throw new SQLException("No member ID generated");
+            }
+            return rs.getInt(1);
+
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Two registrations with the same email raced past the check; the unique index caught it
+            throw duplicateEmail();
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("add member", e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    private static LibraryException duplicateEmail() {
+        return new LibraryException(LibraryException.Reason.DUPLICATE, "Member with this email already exists.");
+    }
+
+    /** Returns why a member cannot be added, or {@code null} if the details are valid. */
+    static String validateMember(String name, String email, String phone) {
+        if (name == null || name.trim().isEmpty()) {
+            return "Member name cannot be empty.";
+        }
+        if (email == null || email.trim().isEmpty()) {
+            return "Email address is required.";
+        }
+        if (phone == null || phone.trim().isEmpty()) {
+            return "Phone number is required.";
+        }
+        // Validate phone number
+        if (!phone.trim().matches("\\d{10}")) {
+            return "Phone number must be exactly 10 digits.";
+        }
+        // Validate email format
+        if (!normalizeEmail(email).matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+            return "Invalid email format.";
+        }
+        return null;
+    }
+
+    public boolean memberExists(int memberId) {
+        String sql = "SELECT COUNT(*) FROM member WHERE MemberID = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, memberId);
+            ResultSet rs = ps.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1) > 0;
+            }
+            return false;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("look up member " + memberId, e);
+        }
+    }
+
+    /**
+     * Emails are stored trimmed and lower-cased, so duplicates are found with a plain
+     * equality that an index on Email can serve. When that index is unique, most new
+     * addresses are ruled out by the in-memory filter without a query at all.
+     */
+    public boolean memberEmailExists(String email) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return emailExists(conn, normalizeEmail(email));
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("check member email", e);
+        }
+    }
+
+    /** Looks the email up on {@code conn}, so rows not yet committed on it are seen too. */
+    static boolean emailExists(Connection conn, String normalizedEmail) throws SQLException {
+        if (emailFilterReady && emailIndexUnique && !emailFilter.mightContain(normalizedEmail)) {
+            return false;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM member WHERE Email = ? LIMIT 1")) {
+            ps.setString(1, normalizedEmail);
+            return ps.executeQuery().next();
+        }
+    }
+
+    /** Records an email inserted outside {@link #addMember} in the duplicate filter. */
+    static void recordEmail(String normalizedEmail) {
+        emailFilter.add(normalizedEmail);
+    }
+
+    /** Builds the email filter from every stored member; run once at startup, off the EDT. */
+    public void loadEmailFilter() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            emailIndexUnique = SchemaManager.uniqueIndexExists(conn, "member", "idx_member_email");
+            ResultSet count = stmt.executeQuery("SELECT COUNT(*) FROM member");
+            count.next();
+            // Leave room for new registrations before the filter's error rate degrades
+            BloomFilter filter = new BloomFilter(Math.max(count.getLong(1) * 2, 10_000), 0.01);
+
+            // Publish before scanning so members added meanwhile are recorded too
+            emailFilterReady = false;
+            emailFilter = filter;
+            ResultSet rs = stmt.executeQuery("SELECT Email FROM member");
+            while (rs.next()) {
+                String email = rs.getString(1);
+                if (email != null) {
+                    filter.add(normalizeEmail(email));
+                }
+            }
+            emailFilterReady = true;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("load member emails", e);
+        }
+    }
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,326 @@
+package com.gui;
+
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named latency histograms and row counters for the service operations, every SQL
+ * statement they run, connection acquisition and the Swing event thread. Each
+ * operation is registered as an MXBean under {@code com.gui:type=Metrics}, and
+ * {@link #startReporting()} appends per-interval figures to a CSV file.
+ * <p>
+ * Names follow one scheme: service calls by method ({@code issueBook}), statements by
+ * the service call that ran them plus verb and table ({@code issueBook: UPDATE books}),
+ * and infrastructure with a dotted prefix ({@code pool.acquire}, {@code edt.dispatch}).
+ */
+public class Metrics {
+
+    private static final Metrics SHARED = new Metrics();
+
+    /** JMX view of one operation; times are in microseconds and cumulative since startup. */
+    public interface OperationMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        long getP50Micros();
+
+        long getP95Micros();
+
+        long getP99Micros();
+
+        long getMaxMicros();
+
+        long getRowsRead();
+
+        long getRowsWritten();
+
+        long getErrors();
+    }
+
+    /** One timed operation. Look it up once and keep it in a static field. */
+    public static final class Operation implements OperationMXBean {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /** Starts timing on this thread; statements run before {@link Timer#close()} are attributed to it. */
+        public Timer start() {
+            return new Timer(this);
+        }
+
+        public void record(long nanos) {
+            latency.record(nanos);
+        }
+
+        public void addRowsRead(long rows) {
+            rowsRead.add(rows);
+        }
+
+        public void addRowsWritten(long rows) {
+            rowsWritten.add(rows);
+        }
+
+        public void recordError() {
+            errors.increment();
+        }
+
+        Sample sample() {
+            return new Sample(latency.snapshot(), rowsRead.sum(), rowsWritten.sum(), errors.sum());
+        }
+
+        @Override
+        public long getCount() {
+            return latency.snapshot().count();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return latency.snapshot().meanNanos() / 1000.0;
+        }
+
+        @Override
+        public long getP50Micros() {
+            return latency.snapshot().percentileNanos(50) / 1000;
+        }
+
+        @Override
+        public long getP95Micros() {
+            return latency.snapshot().percentileNanos(95) / 1000;
+        }
+
+        @Override
+        public long getP99Micros() {
+            return latency.snapshot().percentileNanos(99) / 1000;
+        }
+
+        @Override
+        public long getMaxMicros() {
+            return latency.snapshot().maxNanos() / 1000;
+        }
+
+        @Override
+        public long getRowsRead() {
+            return rowsRead.sum();
+        }
+
+        @Override
+        public long getRowsWritten() {
+            return rowsWritten.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    /** Times one call of an operation; close it in a {@code finally} block. */
+    public static final class Timer implements AutoCloseable {
+        private final Operation operation;
+        private final Operation outer;
+        private final long start = System.nanoTime();
+
+        private Timer(Operation operation) {
+            this.operation = operation;
+            this.outer = CURRENT.get();
+            CURRENT.set(operation);
+        }
+
+        @Override
+        public void close() {
+            operation.record(System.nanoTime() - start);
+            CURRENT.set(outer);
+        }
+    }
+
+    private record Sample(LatencyHistogram.Snapshot latency, long rowsRead, long rowsWritten, long errors) {
+    }
+
+    private static final ThreadLocal<Operation> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    // Starting the platform MBean server takes a few hundred ms, so it is kept off the startup path
+    private final ExecutorService registrar = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "metrics-jmx");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, Sample> lastDump = new HashMap<>();
+    private final long dumpMillis = Long.getLong("library.metrics.dumpMs", 60_000);
+    private final Path dumpFile = Path.of(System.getProperty("library.metrics.file", "metrics.csv"));
+    private final boolean logDumps = Boolean.getBoolean("library.metrics.log");
+    private ScheduledExecutorService reporter;
+
+    public static Metrics shared() {
+        return SHARED;
+    }
+
+    /** The service operation running on this thread, or null outside any timed call. */
+    public static Operation current() {
+        return CURRENT.get();
+    }
+
+    /** Returns the operation with this name, creating it on first use and registering it in the background. */
+    public Operation operation(String name) {
+        Operation existing = operations.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        return operations.computeIfAbsent(name, key -> {
+            Operation operation = new Operation(key);
+            registrar.execute(() -> {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(operation,
+                            new ObjectName("com.gui:type=Metrics,name=" + ObjectName.quote(key)));
+                } catch (Exception e) {
+                    System.err.println("Metrics for " + key + " not registered with JMX: " + e.getMessage());
+                }
+            });
+            return operation;
+        });
+    }
+
+    /**
+     * Appends the figures for each interval of {@code library.metrics.dumpMs} to
+     * {@code library.metrics.file}; with {@code library.metrics.log=true} the busiest
+     * operations are also printed. A dump interval of 0 turns reporting off.
+     */
+    public synchronized void startReporting() {
+        if (reporter != null || dumpMillis <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::dumpQuietly, dumpMillis, dumpMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /** One line per operation that has run, with cumulative figures, busiest first. */
+    public String summary() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Sample> entry : sortedByTotalTime(currentSamples())) {
+            if (entry.getValue().latency().count() > 0) {
+                lines.add(format(entry.getKey(), entry.getValue()));
+            }
+        }
+        return String.join(System.lineSeparator(), lines);
+    }
+
+    private void dumpQuietly() {
+        try {
+            dump();
+        } catch (Exception e) {
+            System.err.println("Metrics dump failed: " + e.getMessage());
+        }
+    }
+
+    private synchronized void dump() throws IOException {
+        Map<String, Sample> now = currentSamples();
+        Map<String, Sample> interval = new HashMap<>();
+        for (Map.Entry<String, Sample> entry : now.entrySet()) {
+            Sample earlier = lastDump.get(entry.getKey());
+            Sample sample = entry.getValue();
+            if (earlier != null) {
+                sample = new Sample(sample.latency().minus(earlier.latency()), sample.rowsRead() - earlier.rowsRead(),
+                        sample.rowsWritten() - earlier.rowsWritten(), sample.errors() - earlier.errors());
+            }
+            if (sample.latency().count() > 0 || sample.errors() > 0) {
+                interval.put(entry.getKey(), sample);
+            }
+        }
+        lastDump.putAll(now);
+        if (interval.isEmpty()) {
+            return;
+        }
+
+        String time = Instant.now().toString();
+        boolean newFile = !Files.exists(dumpFile) || Files.size(dumpFile) == 0;
+        try (BufferedWriter out = Files.newBufferedWriter(dumpFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                out.write("Time,Operation,Count,MeanMicros,P50Micros,P95Micros,P99Micros,MaxMicros,RowsRead,RowsWritten,Errors");
+                out.newLine();
+            }
+            for (Map.Entry<String, Sample> entry : sortedByTotalTime(interval)) {
+                Sample sample = entry.getValue();
+                LatencyHistogram.Snapshot latency = sample.latency();
+                out.write(String.join(",", time, CsvReader.quote(entry.getKey()), String.valueOf(latency.count()),
+                        String.format("%.1f", latency.meanNanos() / 1000.0),
+                        String.valueOf(latency.percentileNanos(50) / 1000),
+                        String.valueOf(latency.percentileNanos(95) / 1000),
+                        String.valueOf(latency.percentileNanos(99) / 1000),
+                        String.valueOf(latency.maxNanos() / 1000),
+                        String.valueOf(sample.rowsRead()), String.valueOf(sample.rowsWritten()),
+                        String.valueOf(sample.errors())));
+                out.newLine();
+            }
+        }
+
+        if (logDumps) {
+            List<Map.Entry<String, Sample>> busiest = sortedByTotalTime(interval);
+            StringBuilder log = new StringBuilder("Metrics for the last " + dumpMillis / 1000 + " s:");
+            for (Map.Entry<String, Sample> entry : busiest.subList(0, Math.min(busiest.size(), 10))) {
+                log.append(System.lineSeparator()).append("  ").append(format(entry.getKey(), entry.getValue()));
+            }
+            System.out.println(log);
+        }
+    }
+
+    private Map<String, Sample> currentSamples() {
+        Map<String, Sample> samples = new HashMap<>();
+        operations.forEach((name, operation) -> samples.put(name, operation.sample()));
+        return samples;
+    }
+
+    private static List<Map.Entry<String, Sample>> sortedByTotalTime(Map<String, Sample> samples) {
+        List<Map.Entry<String, Sample>> entries = new ArrayList<>(samples.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Sample> e) -> e.getValue().latency().sumNanos()).reversed());
+        return entries;
+    }
+
+    private static String format(String name, Sample sample) {
+        LatencyHistogram.Snapshot latency = sample.latency();
+        return String.format("%s: n=%d mean=%.0fus p50=%dus p99=%dus max=%dus rows=%d/%d errors=%d",
+                name, latency.count(), latency.meanNanos() / 1000.0, latency.percentileNanos(50) / 1000,
+                latency.percentileNanos(99) / 1000, latency.maxNanos() / 1000,
+                sample.rowsRead(), sample.rowsWritten(), sample.errors());
+    }
+}
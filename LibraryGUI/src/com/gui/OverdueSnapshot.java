@@ -0,0 +1,192 @@
+package com.gui;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every overdue loan as of one query, with days overdue and fine already computed.
+ * Loans are stored by column: IDs, days and fines as {@code int[]}, dates as epoch days,
+ * and titles and member names as codes into a table of distinct strings, so a large
+ * snapshot is a handful of arrays rather than an object per cell. Both the overdue list
+ * and the fine table read it through {@link OverdueTableModel}, which formats cells as
+ * they are drawn.
+ */
+public class OverdueSnapshot {
+
+    private final int size;
+    private final int[] transactionIds;
+    private final int[] titleCodes;
+    private final int[] memberCodes;
+    private final int[] issueDays;
+    private final int[] dueDays;
+    private final int[] daysOverdue;
+    private final int[] fines;
+    private final String[] titles;
+    private final String[] memberNames;
+    // Open-addressing TransactionID -> row + 1 (0 = empty), built on the first rowOf()
+    private volatile int[] rowSlots;
+
+    private OverdueSnapshot(Builder builder) {
+        size = builder.size;
+        transactionIds = Arrays.copyOf(builder.transactionIds, size);
+        titleCodes = Arrays.copyOf(builder.titleCodes, size);
+        memberCodes = Arrays.copyOf(builder.memberCodes, size);
+        issueDays = Arrays.copyOf(builder.issueDays, size);
+        dueDays = Arrays.copyOf(builder.dueDays, size);
+        daysOverdue = Arrays.copyOf(builder.daysOverdue, size);
+        fines = Arrays.copyOf(builder.fines, size);
+        titles = builder.titles.values.toArray(new String[0]);
+        memberNames = builder.memberNames.values.toArray(new String[0]);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int transactionId(int row) {
+        return transactionIds[row];
+    }
+
+    public String title(int row) {
+        return titles[titleCodes[row]];
+    }
+
+    public String memberName(int row) {
+        return memberNames[memberCodes[row]];
+    }
+
+    public LocalDate issueDate(int row) {
+        return LocalDate.ofEpochDay(issueDays[row]);
+    }
+
+    public LocalDate dueDate(int row) {
+        return LocalDate.ofEpochDay(dueDays[row]);
+    }
+
+    public int daysOverdue(int row) {
+        return daysOverdue[row];
+    }
+
+    public int fine(int row) {
+        return fines[row];
+    }
+
+    /** Whether loan {@code row} shows the same figures as loan {@code otherRow} of {@code other}. */
+    boolean sameValues(int row, OverdueSnapshot other, int otherRow) {
+        return issueDays[row] == other.issueDays[otherRow]
+                && dueDays[row] == other.dueDays[otherRow]
+                && daysOverdue[row] == other.daysOverdue[otherRow]
+                && fines[row] == other.fines[otherRow]
+                && title(row).equals(other.title(otherRow))
+                && memberName(row).equals(other.memberName(otherRow));
+    }
+
+    /** Row of the loan with this TransactionID, or -1. */
+    public int rowOf(int transactionId) {
+        int[] slots = rowSlots;
+        if (slots == null) {
+            slots = indexRows();
+            rowSlots = slots;
+        }
+        int mask = slots.length - 1;
+        for (int i = slot(transactionId, mask); slots[i] != 0; i = (i + 1) & mask) {
+            if (transactionIds[slots[i] - 1] == transactionId) {
+                return slots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int[] indexRows() {
+        int[] slots = new int[Integer.highestOneBit(Math.max(size, 1)) * 4];
+        int mask = slots.length - 1;
+        for (int row = 0; row < size; row++) {
+            int i = slot(transactionIds[row], mask);
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = row + 1;
+        }
+        return slots;
+    }
+
+    private static int slot(int transactionId, int mask) {
+        // Spread sequential IDs across the table
+        int h = transactionId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /** Collects loans in the order they are added; not thread-safe. */
+    public static class Builder {
+        private int size;
+        private int[] transactionIds = new int[64];
+        private int[] titleCodes = new int[64];
+        private int[] memberCodes = new int[64];
+        private int[] issueDays = new int[64];
+        private int[] dueDays = new int[64];
+        private int[] daysOverdue = new int[64];
+        private int[] fines = new int[64];
+        private final Dictionary titles = new Dictionary();
+        private final Dictionary memberNames = new Dictionary();
+
+        public Builder add(int transactionId, String title, String memberName,
+                           LocalDate issueDate, LocalDate dueDate, int daysOverdue, int fine) {
+            return add(transactionId, title, memberName, issueDate.toEpochDay(), dueDate.toEpochDay(), daysOverdue, fine);
+        }
+
+        public Builder add(int transactionId, String title, String memberName,
+                           long issueDay, long dueDay, int daysOverdue, int fine) {
+            if (size == transactionIds.length) {
+                grow();
+            }
+            transactionIds[size] = transactionId;
+            titleCodes[size] = titles.code(title);
+            memberCodes[size] = memberNames.code(memberName);
+            issueDays[size] = Math.toIntExact(issueDay);
+            dueDays[size] = Math.toIntExact(dueDay);
+            this.daysOverdue[size] = daysOverdue;
+            fines[size] = fine;
+            size++;
+            return this;
+        }
+
+        public OverdueSnapshot build() {
+            return new OverdueSnapshot(this);
+        }
+
+        private void grow() {
+            int capacity = transactionIds.length * 2;
+            transactionIds = Arrays.copyOf(transactionIds, capacity);
+            titleCodes = Arrays.copyOf(titleCodes, capacity);
+            memberCodes = Arrays.copyOf(memberCodes, capacity);
+            issueDays = Arrays.copyOf(issueDays, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            daysOverdue = Arrays.copyOf(daysOverdue, capacity);
+            fines = Arrays.copyOf(fines, capacity);
+        }
+    }
+
+    // Distinct strings in first-seen order; a code is an index into values
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+}
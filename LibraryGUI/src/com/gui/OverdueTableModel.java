@@ -0,0 +1,168 @@
+package com.gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Shows an {@link OverdueSnapshot} in a table without copying it into rows. Cells are
+ * formatted when the table asks for them, so only the rows on screen are ever turned
+ * into strings. An empty snapshot shows a single placeholder row.
+ * <p>
+ * A new snapshot is reconciled with the rows on screen by TransactionID: returned loans
+ * are removed, loans whose figures changed are updated in place and new loans are
+ * appended, with one table event per run of rows, so the table keeps its selection
+ * and scroll position across a refresh.
+ */
+public class OverdueTableModel extends AbstractTableModel {
+
+    public enum Column {
+        TRANSACTION_ID("Transaction ID"),
+        BOOK_TITLE("Book Title"),
+        MEMBER_NAME("Member Name"),
+        ISSUE_DATE("Issue Date"),
+        DUE_DATE("Due Date"),
+        DAYS_OVERDUE("Overdue By"),
+        DAYS_OVERDUE_COUNT("Days Overdue"),
+        FINE("Fine");
+
+        private final String label;
+
+        Column(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Column[] columns;
+    private final String placeholder;
+    private OverdueSnapshot snapshot = new OverdueSnapshot.Builder().build();
+    // Snapshot row shown on each table row: loans keep their place and new ones go at the end
+    private int[] order = new int[0];
+
+    public OverdueTableModel(String placeholder, Column... columns) {
+        this.placeholder = placeholder;
+        this.columns = columns;
+    }
+
+    /** ID, title, member, issue date, due date, days overdue, fine. */
+    public static OverdueTableModel overdueList() {
+        return new OverdueTableModel("No overdue books found", Column.TRANSACTION_ID, Column.BOOK_TITLE,
+                Column.MEMBER_NAME, Column.ISSUE_DATE, Column.DUE_DATE, Column.DAYS_OVERDUE, Column.FINE);
+    }
+
+    /** ID, member, title, days overdue, fine. */
+    public static OverdueTableModel fineTable() {
+        return new OverdueTableModel("No fines", Column.TRANSACTION_ID, Column.MEMBER_NAME,
+                Column.BOOK_TITLE, Column.DAYS_OVERDUE_COUNT, Column.FINE);
+    }
+
+    public OverdueSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /** Shows {@code next}, changing only the rows that differ from the current snapshot; call on the EDT. */
+    public void setSnapshot(OverdueSnapshot next) {
+        OverdueSnapshot previous = snapshot;
+        if (previous.isEmpty() || next.isEmpty()) {
+            // The placeholder row is not a loan, so there is nothing to match up
+            snapshot = next;
+            order = identity(next.size());
+            fireTableDataChanged();
+            return;
+        }
+
+        int[] kept = new int[order.length];
+        int[] keptNext = new int[order.length];
+        boolean[] removed = new boolean[order.length];
+        boolean[] placed = new boolean[next.size()];
+        int keptCount = 0;
+        for (int row = 0; row < order.length; row++) {
+            int nextRow = next.rowOf(previous.transactionId(order[row]));
+            if (nextRow < 0) {
+                removed[row] = true;
+            } else {
+                kept[keptCount] = order[row];
+                keptNext[keptCount++] = nextRow;
+                placed[nextRow] = true;
+            }
+        }
+
+        // Removals are reported against the old snapshot with only the surviving rows left
+        int[] oldOrder = order;
+        order = Arrays.copyOf(kept, keptCount);
+        for (int end = oldOrder.length - 1; end >= 0; end--) {
+            if (removed[end]) {
+                int start = end;
+                while (start > 0 && removed[start - 1]) {
+                    start--;
+                }
+                fireTableRowsDeleted(start, end);
+                end = start;
+            }
+        }
+
+        snapshot = next;
+        order = Arrays.copyOf(keptNext, keptCount);
+        for (int start = 0; start < keptCount; start++) {
+            if (!previous.sameValues(kept[start], next, keptNext[start])) {
+                int end = start;
+                while (end + 1 < keptCount && !previous.sameValues(kept[end + 1], next, keptNext[end + 1])) {
+                    end++;
+                }
+                fireTableRowsUpdated(start, end);
+                start = end;
+            }
+        }
+        if (keptCount < next.size()) {
+            int[] nextOrder = Arrays.copyOf(keptNext, next.size());
+            int count = keptCount;
+            for (int nextRow = 0; nextRow < next.size(); nextRow++) {
+                if (!placed[nextRow]) {
+                    nextOrder[count++] = nextRow;
+                }
+            }
+            order = nextOrder;
+            fireTableRowsInserted(keptCount, count - 1);
+        }
+    }
+
+    private static int[] identity(int size) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    @Override
+    public int getRowCount() {
+        return snapshot.isEmpty() ? 1 : order.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].label;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (snapshot.isEmpty()) {
+            return column == 0 ? placeholder : "";
+        }
+        row = order[row];
+        return switch (columns[column]) {
+            case TRANSACTION_ID -> snapshot.transactionId(row);
+            case BOOK_TITLE -> snapshot.title(row);
+            case MEMBER_NAME -> snapshot.memberName(row);
+            case ISSUE_DATE -> snapshot.issueDate(row);
+            case DUE_DATE -> snapshot.dueDate(row);
+            case DAYS_OVERDUE -> snapshot.daysOverdue(row) + " days";
+            case DAYS_OVERDUE_COUNT -> snapshot.daysOverdue(row);
+            case FINE -> "₹" + snapshot.fine(row);
+        };
+    }
+}
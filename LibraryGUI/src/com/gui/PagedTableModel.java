@@ -0,0 +1,352 @@
+package com.gui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that loads rows a page at a time as the table asks for them.
+ * Pages are read with keyset pagination on (sort column, primary key), a bounded
+ * number of pages is kept in memory, and sorting is done by the database.
+ * <p>
+ * Pages are fetched on background threads; until a page arrives its cells read as
+ * empty and the table is repainted when it lands. A page that fails to load is not
+ * kept, so it is read again the next time the table asks for it; the first failure
+ * of a run is shown to the user. Apart from {@link #loadRowCount()}, all methods must
+ * be called on the EDT.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    private static final ExecutorService PAGE_LOADER = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * A displayed column: its header, the SQL expression it is read and sorted by, an optional
+     * display format, and whether a header click sorts by it. Columns whose values are filled in
+     * by {@link #mapRows} should not be sortable, since the database sorts by the expression.
+     */
+    public record Column(String label, String expression, Function<Object, Object> format, boolean sortable) {
+        public Column(String label, String expression, Function<Object, Object> format) {
+            this(label, expression, format, true);
+        }
+
+        public Column(String label, String expression) {
+            this(label, expression, null);
+        }
+    }
+
+    private final String fromClause;
+    private final String keyExpression;
+    private final Column[] columns;
+    private final int pageSize;
+    private volatile Consumer<Object[][]> rowMapper = rows -> { };
+
+    private final Map<Integer, Object[][]> pages;
+    // Keyset anchor for each page: {sort value, key} of the last row of the page before it
+    private final Map<Integer, Object[]> anchors = new HashMap<>();
+    private final Map<Integer, Future<?>> loading = new HashMap<>();
+
+    private volatile int rowCount = -1;
+    // Bumped whenever cached pages become invalid, so late page loads are discarded
+    private int generation;
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    // Set once a failed page load has been reported, until a page loads again
+    private boolean failing;
+
+    public PagedTableModel(String fromClause, String keyExpression, Column... columns) {
+        this(fromClause, keyExpression, Integer.getInteger("library.table.pageSize", 200),
+             Integer.getInteger("library.table.cachedPages", 20), columns);
+    }
+
+    public PagedTableModel(String fromClause, String keyExpression, int pageSize, int maxCachedPages, Column... columns) {
+        this.fromClause = fromClause;
+        this.keyExpression = keyExpression;
+        this.columns = columns;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code mapper} over every page as it is read, on the loading thread, so values
+     * that are not stored can be filled in once per page instead of once per cell.
+     * Sorting follows the SQL expressions, so mark the columns the mapper fills as not sortable.
+     */
+    public PagedTableModel mapRows(Consumer<Object[][]> mapper) {
+        this.rowMapper = mapper;
+        return this;
+    }
+
+    @Override
+    public int getRowCount() {
+        return Math.max(rowCount, 0);
+    }
+
+    /**
+     * Counts the rows of the view. Blocks on the database, so call it off the EDT.
+     *
+     * @throws LibraryException if the count cannot be read
+     */
+    public void loadRowCount() {
+        rowCount = countRows();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].label();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / pageSize;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = rowIndex % pageSize;
+        if (offset >= rows.length) {
+            return null;
+        }
+        Object value = rows[offset][columnIndex];
+        Function<Object, Object> format = columns[columnIndex].format();
+        return format != null ? format.apply(value) : value;
+    }
+
+    /** Sorts by the given column, toggling direction when it is already the sort column. */
+    public void sortBy(int column) {
+        if (!columns[column].sortable()) {
+            return;
+        }
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        invalidate();
+        fireTableDataChanged();
+    }
+
+    /** Re-reads the row count in the background and drops every cached page. */
+    public void refresh() {
+        invalidate();
+        int expected = generation;
+        PAGE_LOADER.submit(() -> {
+            try {
+                loadRowCount();
+            } catch (LibraryException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (expected == generation) {
+                        TaskRunner.showError(e);
+                    }
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (expected == generation) {
+                    fireTableDataChanged();
+                }
+            });
+        });
+    }
+
+    /** Cancels outstanding page loads; call when the view is closed. */
+    public void close() {
+        invalidate();
+    }
+
+    /** Creates a table on this model whose header clicks sort through {@link #sortBy(int)}. */
+    public JTable createTable() {
+        JTable table = new JTable(this);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn >= 0) {
+                    sortBy(table.convertColumnIndexToModel(viewColumn));
+                }
+            }
+        });
+        return table;
+    }
+
+    /** Reads a page on the calling thread without touching the page cache; used by the benchmarks. */
+    Object[][] readPage(int page) {
+        Page result = fetchPage(page, anchors.get(page), sortColumn, ascending);
+        if (result.nextAnchor() != null) {
+            anchors.put(page + 1, result.nextAnchor());
+        }
+        return result.rows();
+    }
+
+    private int countRows() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + fromClause);
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("count the rows", e);
+        }
+    }
+
+    private void invalidate() {
+        generation++;
+        failing = false;
+        loading.values().forEach(f -> f.cancel(true));
+        loading.clear();
+        pages.clear();
+        anchors.clear();
+    }
+
+    private void requestPage(int page) {
+        if (loading.containsKey(page)) {
+            return;
+        }
+        int expected = generation;
+        Object[] anchor = page == 0 ? null : anchors.get(page);
+        int sort = sortColumn;
+        boolean asc = ascending;
+
+        loading.put(page, PAGE_LOADER.submit(() -> {
+            Page result;
+            try {
+                result = fetchPage(page, anchor, sort, asc);
+            } catch (RuntimeException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (expected != generation) {
+                        return;
+                    }
+                    loading.remove(page);
+                    if (!failing) {
+                        failing = true;
+                        TaskRunner.showError(e);
+                    }
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (expected != generation) {
+                    return;
+                }
+                loading.remove(page);
+                failing = false;
+                pages.put(page, result.rows());
+                if (result.nextAnchor() != null) {
+                    anchors.put(page + 1, result.nextAnchor());
+                }
+                int first = page * pageSize;
+                int last = Math.min(first + pageSize, getRowCount()) - 1;
+                if (last >= first) {
+                    fireTableRowsUpdated(first, last);
+                }
+            });
+        }));
+    }
+
+    /** Reads one page; throws {@link LibraryException} if it cannot. */
+    private Page fetchPage(int page, Object[] anchor, int sortColumn, boolean ascending) {
+        String sortExpression = sortColumn >= 0 ? columns[sortColumn].expression() : null;
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (Column column : columns) {
+            sql.append(column.expression()).append(", ");
+        }
+        sql.append(keyExpression).append(" FROM ").append(fromClause);
+        if (anchor != null) {
+            sql.append(" WHERE ").append(keysetPredicate(sortExpression, anchor[0], ascending));
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        sql.append(" ORDER BY ");
+        if (sortExpression != null) {
+            sql.append(sortExpression).append(direction).append(", ");
+        }
+        sql.append(keyExpression).append(direction);
+        sql.append(" LIMIT ").append(pageSize);
+        if (page > 0 && anchor == null) {
+            // Jumped past pages we have not read yet; fall back to an offset for this one page
+            sql.append(" OFFSET ").append((long) page * pageSize);
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            if (anchor != null) {
+                int index = 1;
+                if (sortExpression != null && anchor[0] != null) {
+                    ps.setObject(index++, anchor[0]);
+                    ps.setObject(index++, anchor[0]);
+                }
+                ps.setObject(index, anchor[1]);
+            }
+
+            ResultSet rs = ps.executeQuery();
+            Object[][] rows = new Object[pageSize][];
+            int count = 0;
+            Object lastKey = null;
+            while (rs.next()) {
+                Object[] row = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                lastKey = rs.getObject(columns.length + 1);
+                rows[count++] = row;
+            }
+            Object[] nextAnchor = null;
+            if (count > 0) {
+                // Taken before the mapper runs, so the anchor holds what the database sorted on
+                Object lastSortValue = sortColumn >= 0 ? rows[count - 1][sortColumn] : null;
+                nextAnchor = new Object[]{lastSortValue, lastKey};
+            }
+            if (count < pageSize) {
+                Object[][] trimmed = new Object[count][];
+                System.arraycopy(rows, 0, trimmed, 0, count);
+                rows = trimmed;
+            }
+            rowMapper.accept(rows);
+            return new Page(rows, nextAnchor);
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("load the rows", e);
+        }
+    }
+
+    /**
+     * Rows strictly after the anchor in (sort, key) order. NULL sort values come first
+     * in ascending order and last in descending order, as in both MySQL and H2.
+     */
+    private String keysetPredicate(String sortExpression, Object anchorSortValue, boolean ascending) {
+        String after = ascending ? " > ?" : " < ?";
+        if (sortExpression == null) {
+            return keyExpression + after;
+        }
+        if (anchorSortValue == null) {
+            return ascending
+                ? "(" + sortExpression + " IS NULL AND " + keyExpression + after + ") OR " + sortExpression + " IS NOT NULL"
+                : sortExpression + " IS NULL AND " + keyExpression + after;
+        }
+        String predicate = "(" + sortExpression + after + " OR (" + sortExpression + " = ? AND " + keyExpression + after + "))";
+        return ascending ? predicate : "(" + predicate + " OR " + sortExpression + " IS NULL)";
+    }
+
+    private record Page(Object[][] rows, Object[] nextAnchor) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.gui;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client for a {@link CirculationServer}. Calls block the calling thread until the
+ * server answers; server-side errors come back as {@link LibraryException} with the
+ * same reason the server reported.
+ */
+public class RemoteLibraryApi implements LibraryApi {
+
+    private final URI baseUri;
+    private final String token;
+    private final Duration timeout = Duration.ofMillis(Long.getLong("library.server.timeoutMs", 10_000));
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public RemoteLibraryApi(String baseUrl, String token) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.token = token;
+    }
+
+    @Override
+    public IssueResult issueBook(int memberId, int bookId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("memberId", memberId);
+        body.put("bookId", bookId);
+        return issueResult((Map<?, ?>) call("POST", "api/issue", body));
+    }
+
+    @Override
+    public ReturnResult returnBook(int transactionId) {
+        return returnResult((Map<?, ?>) call("POST", "api/return", Map.of("transactionId", transactionId)));
+    }
+
+    @Override
+    public Map<Integer, IssueResult> issueBooks(int memberId, Collection<Integer> bookIds) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("memberId", memberId);
+        body.put("bookIds", bookIds);
+        Map<Integer, IssueResult> results = new LinkedHashMap<>();
+        for (Object item : (List<?>) call("POST", "api/issue/batch", body)) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            results.put(intValue(json, "bookId"), issueResult(json));
+        }
+        return results;
+    }
+
+    @Override
+    public Map<Integer, ReturnResult> returnBooks(Collection<Integer> transactionIds) {
+        Map<Integer, ReturnResult> results = new LinkedHashMap<>();
+        for (Object item : (List<?>) call("POST", "api/return/batch", Map.of("transactionIds", transactionIds))) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            results.put(intValue(json, "transactionId"), returnResult(json));
+        }
+        return results;
+    }
+
+    private static IssueResult issueResult(Map<?, ?> json) {
+        Object dueDate = json.get("dueDate");
+        return new IssueResult(CirculationStatus.valueOf((String) json.get("status")),
+                intValue(json, "transactionId"), dueDate == null ? null : LocalDate.parse((String) dueDate));
+    }
+
+    private static ReturnResult returnResult(Map<?, ?> json) {
+        return new ReturnResult(CirculationStatus.valueOf((String) json.get("status")),
+                intValue(json, "bookId"), ((Number) json.get("daysOverdue")).longValue(), intValue(json, "fine"));
+    }
+
+    @Override
+    public int addBook(String title, String author, int quantity) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("title", title);
+        body.put("author", author);
+        body.put("quantity", quantity);
+        return intValue((Map<?, ?>) call("POST", "api/books", body), "bookId");
+    }
+
+    @Override
+    public List<BookCache.BookRecord> searchBooks(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw LibraryException.invalid("Search text cannot be empty.");
+        }
+        String path = "api/books/search?q=" + URLEncoder.encode(query.trim(), StandardCharsets.UTF_8) + "&limit=" + limit;
+        List<BookCache.BookRecord> books = new ArrayList<>();
+        for (Object item : (List<?>) call("GET", path, null)) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            books.add(new BookCache.BookRecord(intValue(json, "bookId"), (String) json.get("title"),
+                    (String) json.get("author"), intValue(json, "available"), intValue(json, "total")));
+        }
+        return books;
+    }
+
+    @Override
+    public OverdueSnapshot getOverdueSnapshot() {
+        OverdueSnapshot.Builder loans = new OverdueSnapshot.Builder();
+        for (Object item : (List<?>) call("GET", "api/overdue", null)) {
+            Map<?, ?> json = (Map<?, ?>) item;
+            loans.add(intValue(json, "transactionId"), (String) json.get("title"), (String) json.get("memberName"),
+                    dateValue(json, "issueDate"), dateValue(json, "dueDate"),
+                    intValue(json, "daysOverdue"), intValue(json, "fine"));
+        }
+        return loans.build();
+    }
+
+    @Override
+    public LibraryStats.Snapshot getStats() {
+        Map<?, ?> json = (Map<?, ?>) call("GET", "api/stats", null);
+        Object reconciledAt = json.get("reconciledAt");
+        return new LibraryStats.Snapshot(longValue(json, "titles"), longValue(json, "copies"),
+                longValue(json, "availableCopies"), longValue(json, "activeLoans"), longValue(json, "overdueLoans"),
+                longValue(json, "outstandingFines"), longValue(json, "issuedToday"), longValue(json, "returnedToday"),
+                LocalDate.parse((String) json.get("day")),
+                reconciledAt == null ? null : Instant.parse((String) reconciledAt));
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    private Object call(String method, String path, Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (token != null && !token.isEmpty()) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json");
+            request.method(method, HttpRequest.BodyPublishers.ofString(Json.write(body), StandardCharsets.UTF_8));
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new LibraryException(LibraryException.Reason.DATABASE,
+                    "Could not reach circulation server " + baseUri + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LibraryException(LibraryException.Reason.DATABASE, "Interrupted while calling " + path, e);
+        }
+
+        if (response.statusCode() == 200) {
+            return Json.parse(response.body());
+        }
+        String message;
+        try {
+            message = Json.parse(response.body()) instanceof Map<?, ?> error
+                    ? String.valueOf(error.get("message")) : response.body();
+        } catch (IllegalArgumentException e) {
+            message = "HTTP " + response.statusCode() + " from circulation server";
+        }
+        LibraryException.Reason reason = switch (response.statusCode()) {
+            case 400 -> LibraryException.Reason.INVALID_INPUT;
+            case 409 -> LibraryException.Reason.DUPLICATE;
+            default -> LibraryException.Reason.DATABASE;
+        };
+        throw new LibraryException(reason, message);
+    }
+
+    private static int intValue(Map<?, ?> json, String field) {
+        return ((Number) json.get(field)).intValue();
+    }
+
+    private static long longValue(Map<?, ?> json, String field) {
+        return ((Number) json.get(field)).longValue();
+    }
+
+    private static LocalDate dateValue(Map<?, ?> json, String field) {
+        return LocalDate.parse((String) json.get(field));
+    }
+}
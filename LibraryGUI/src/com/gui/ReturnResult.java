@@ -0,0 +1,5 @@
+package com.gui;
+
+/** Result of a return attempt, with the fine charged when the status is OK. */
+public record ReturnResult(CirculationStatus status, int bookId, long daysOverdue, int fine) {
+}
@@ -0,0 +1,288 @@
+package com.gui;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates and upgrades the library schema. Each migration has a version number and
+ * runs once; applied versions are recorded in {@code schema_version}. Desks starting
+ * together migrate one at a time under a database lock, and each step is committed
+ * together with its version row, except where DDL commits on its own. The DDL sticks
+ * to syntax that MySQL and H2 (MySQL mode) both accept, so the same migrations
+ * build a local embedded database for tests.
+ */
+public class SchemaManager {
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+
+    /** An index the service queries rely on. */
+    public record RequiredIndex(String table, String name, String columns, String servesQuery) {
+    }
+
+    private static final int LOCK_TIMEOUT_SECONDS = 120;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Create books, member and transactions", SchemaManager::createTables),
+        new Migration(2, "Indexes for circulation and overdue queries", SchemaManager::createIndexes),
+        new Migration(3, "Index for daily issue counts", conn ->
+            createIndexIfMissing(conn, "transactions", "idx_transactions_issue_date", "IssueDate", false)),
+        new Migration(4, "Numeric Fine and DaysOverdue, set when a loan is returned", SchemaManager::numericFines),
+        new Migration(5, "Store member emails trimmed and lower-cased", SchemaManager::normalizeEmails)
+    );
+
+    private static final List<RequiredIndex> REQUIRED_INDEXES = List.of(
+        new RequiredIndex("transactions", "idx_transactions_status_due", "Status, DueDate",
+            "overdue snapshot: Status = 'ISSUED' AND DueDate < today"),
+        new RequiredIndex("transactions", "idx_transactions_member_book_status", "MemberID, BookID, Status",
+            "open loan check on issue: MemberID = ? AND BookID = ? AND Status = 'ISSUED'"),
+        new RequiredIndex("transactions", "idx_transactions_open", "ReturnDate, TransactionID",
+            "dashboard reconciliation: ReturnDate = today"),
+        new RequiredIndex("transactions", "idx_transactions_issue_date", "IssueDate",
+            "dashboard reconciliation: IssueDate = today"),
+        new RequiredIndex("member", "idx_member_email", "Email",
+            "duplicate email check: Email = ?")
+    );
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /** Applies every migration newer than the database's recorded version. Returns the number applied. */
+    public static int migrate() throws SQLException, ClassNotFoundException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return migrate(conn);
+        }
+    }
+
+    public static int migrate(Connection conn) throws SQLException {
+        SqlDialect dialect = SqlDialect.forUrl(conn.getMetaData().getURL());
+        if (!dialect.lockSchema(conn, LOCK_TIMEOUT_SECONDS)) {
+            throw new SQLException("Another desk has been migrating the schema for over "
+                    + LOCK_TIMEOUT_SECONDS + " seconds");
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            return migrateLocked(conn);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+            dialect.unlockSchema(conn);
+        }
+    }
+
+    private static int migrateLocked(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    Version INT PRIMARY KEY,
+                    Description VARCHAR(200) NOT NULL,
+                    AppliedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+
+        // Read under the lock: another desk may have migrated while this one waited
+        int current = currentVersion(conn);
+        int applied = 0;
+        conn.setAutoCommit(false);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            try {
+                migration.step().apply(conn);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO schema_version (Version, Description) VALUES (?, ?)")) {
+                    ps.setInt(1, migration.version());
+                    ps.setString(2, migration.description());
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+            applied++;
+        }
+        return applied;
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT MAX(Version) FROM schema_version");
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /** Returns the required indexes that are missing from the connected database. */
+    public static List<RequiredIndex> findMissingIndexes(Connection conn) throws SQLException {
+        List<RequiredIndex> missing = new ArrayList<>();
+        for (RequiredIndex index : REQUIRED_INDEXES) {
+            if (!indexExists(conn, index.table(), index.name())) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+
+    /** Runs pending migrations and warns about any required index that is still missing. */
+    public static void migrateAndVerify() throws SQLException, ClassNotFoundException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            migrate(conn);
+            for (RequiredIndex index : findMissingIndexes(conn)) {
+                System.err.println("WARNING: missing index " + index.name() + " on " + index.table()
+                        + "(" + index.columns() + "), needed for " + index.servesQuery());
+            }
+        }
+    }
+
+    private static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS books (
+                    BookID INT AUTO_INCREMENT PRIMARY KEY,
+                    Title VARCHAR(255) NOT NULL,
+                    Author VARCHAR(255) NOT NULL,
+                    Available INT NOT NULL,
+                    Total INT NOT NULL
+                )
+            """);
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS member (
+                    MemberID INT AUTO_INCREMENT PRIMARY KEY,
+                    Name VARCHAR(100) NOT NULL,
+                    Email VARCHAR(255) NOT NULL,
+                    Phone VARCHAR(15),
+                    Reg_Date DATE
+                )
+            """);
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS transactions (
+                    TransactionID INT AUTO_INCREMENT PRIMARY KEY,
+                    MemberID INT NOT NULL,
+                    BookID INT NOT NULL,
+                    IssueDate DATE NOT NULL,
+                    DueDate DATE NOT NULL,
+                    ReturnDate DATE,
+                    Status VARCHAR(20) NOT NULL,
+                    Fine VARCHAR(20) DEFAULT '0',
+                    DaysOverdue VARCHAR(20) DEFAULT '0',
+                    FOREIGN KEY (MemberID) REFERENCES member (MemberID),
+                    FOREIGN KEY (BookID) REFERENCES books (BookID)
+                )
+            """);
+        }
+    }
+
+    private static void createIndexes(Connection conn) throws SQLException {
+        createIndexIfMissing(conn, "transactions", "idx_transactions_status_due", "Status, DueDate", false);
+        createIndexIfMissing(conn, "transactions", "idx_transactions_member_book_status", "MemberID, BookID, Status", false);
+        createIndexIfMissing(conn, "transactions", "idx_transactions_open", "ReturnDate, TransactionID", false);
+
+        // Unique only if the existing data allows it; otherwise still give the lookup an index
+        boolean duplicates;
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM member GROUP BY LOWER(TRIM(Email)) HAVING COUNT(*) > 1 LIMIT 1");
+            duplicates = rs.next();
+        }
+        if (duplicates) {
+            System.err.println("WARNING: member contains duplicate emails; idx_member_email is not unique");
+        }
+        createIndexIfMissing(conn, "member", "idx_member_email", "Email", !duplicates);
+    }
+
+    /**
+     * Fine and DaysOverdue were strings rewritten every day for open loans. They become
+     * integers that are written once, on return, and are NULL while the loan is open;
+     * the current figures for an open loan are worked out from its DueDate when read.
+     * MySQL commits after each ALTER, so a failure can leave one column converted; a
+     * column that is already an integer is not converted or cleaned again.
+     */
+    private static void numericFines(Connection conn) throws SQLException {
+        for (String column : new String[] {"Fine", "DaysOverdue"}) {
+            if (isIntegerColumn(conn, "transactions", column)) {
+                continue;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE transactions SET " + column + " = NULL WHERE Status = 'ISSUED'");
+                stmt.executeUpdate("UPDATE transactions SET " + column + " = '0' "
+                        + "WHERE Status <> 'ISSUED' AND (" + column + " IS NULL OR TRIM(" + column + ") = '')");
+                stmt.executeUpdate("ALTER TABLE transactions MODIFY " + column + " INT NULL");
+            }
+        }
+    }
+
+    private static boolean isIntegerColumn(Connection conn, String table, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String tableName = meta.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        String columnName = meta.storesUpperCaseIdentifiers() ? column.toUpperCase() : column;
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), conn.getSchema(), tableName, columnName)) {
+            return rs.next() && rs.getInt("DATA_TYPE") == Types.INTEGER;
+        }
+    }
+
+    /**
+     * Lookups compare normalized emails exactly, which only finds older mixed-case rows on a
+     * case-insensitive collation. Rows whose normalized email another row shares are left as
+     * they are, since rewriting them could break the unique index; they are reported instead.
+     */
+    private static void normalizeEmails(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("""
+                UPDATE member SET Email = LOWER(TRIM(Email))
+                WHERE LOWER(TRIM(Email)) NOT IN (
+                    SELECT Normalized FROM (
+                        SELECT LOWER(TRIM(Email)) AS Normalized FROM member
+                        GROUP BY LOWER(TRIM(Email)) HAVING COUNT(*) > 1
+                    ) shared
+                )
+            """);
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM member WHERE Email <> LOWER(TRIM(Email))");
+            if (rs.next() && rs.getLong(1) > 0) {
+                System.err.println("WARNING: " + rs.getLong(1) + " member emails were not normalized because another "
+                        + "member has the same address");
+            }
+        }
+    }
+
+    private static void createIndexIfMissing(Connection conn, String table, String name, String columns,
+                                             boolean unique) throws SQLException {
+        if (indexExists(conn, table, name)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name
+                    + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private static boolean indexExists(Connection conn, String table, String name) throws SQLException {
+        return indexExists(conn, table, name, false);
+    }
+
+    /** Whether the index exists and is unique, i.e. the database itself rejects duplicates. */
+    public static boolean uniqueIndexExists(Connection conn, String table, String name) throws SQLException {
+        return indexExists(conn, table, name, true);
+    }
+
+    private static boolean indexExists(Connection conn, String table, String name, boolean unique) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String tableName = meta.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), tableName, unique, true)) {
+            while (rs.next()) {
+                if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,236 @@
+package com.gui;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the service paths against a seeded database, in the spirit of a JMH run:
+ * each benchmark is warmed up, then timed per operation for a fixed duration, and the
+ * report shows throughput, average and tail latency, allocation per operation and GC
+ * activity. Point it at a local embedded database through the usual system properties,
+ * for example:
+ * <pre>
+ * java -Dlibrary.db.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1 -Dlibrary.db.driver=org.h2.Driver \
+ *      com.gui.ServiceBenchmark --books=50000 --members=20000 --loans=30000 issueBook returnBook
+ * </pre>
+ */
+public class ServiceBenchmark {
+
+    @FunctionalInterface
+    private interface Operation {
+        /** Runs one operation; returns false when there is no work left to measure. */
+        boolean run(int iteration) throws Exception;
+    }
+
+    private static final int MAX_SAMPLES = 2_000_000;
+    private static final int BATCH_ITEMS = 5;
+
+    private final BookService bookService = new BookService();
+    private final TransactionService transactionService = new TransactionService();
+    private final Random random = new Random(7);
+    private final Deque<Integer> openLoans = new ArrayDeque<>();
+    private final Map<String, Operation> benchmarks = new LinkedHashMap<>();
+
+    private final long warmupMillis;
+    private final long measureMillis;
+    private int bookCount;
+    private int memberCount;
+    // Consumes results so the JIT cannot discard the work that produced them
+    private long sink;
+
+    public ServiceBenchmark(long warmupMillis, long measureMillis) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+
+        benchmarks.put("issueBook", i -> {
+            IssueResult result = transactionService.issueBook(1 + random.nextInt(memberCount), 1 + random.nextInt(bookCount));
+            if (result.status() == CirculationStatus.OK) {
+                openLoans.push(result.transactionId());
+            }
+            return true;
+        });
+        benchmarks.put("returnBook", i -> {
+            Integer transactionId = openLoans.poll();
+            if (transactionId == null) {
+                return false;
+            }
+            transactionService.returnBook(transactionId);
+            return true;
+        });
+        benchmarks.put("issueBatch", i -> {
+            List<Integer> books = new ArrayList<>();
+            for (int n = 0; n < BATCH_ITEMS; n++) {
+                books.add(1 + random.nextInt(bookCount));
+            }
+            for (IssueResult result : transactionService.issueBooks(1 + random.nextInt(memberCount), books).values()) {
+                if (result.status() == CirculationStatus.OK) {
+                    openLoans.push(result.transactionId());
+                }
+            }
+            return true;
+        });
+        benchmarks.put("returnBatch", i -> {
+            List<Integer> loans = new ArrayList<>();
+            while (loans.size() < BATCH_ITEMS && !openLoans.isEmpty()) {
+                loans.add(openLoans.poll());
+            }
+            if (loans.isEmpty()) {
+                return false;
+            }
+            transactionService.returnBooks(loans);
+            return true;
+        });
+        benchmarks.put("getOverdueBooks", i -> {
+            sink += bookService.getOverdueSnapshot().size();
+            return true;
+        });
+        PagedTableModel transactions = transactionService.createTransactionsModel();
+        benchmarks.put("transactionsPage", i -> {
+            sink += transactions.readPage(i % 50).length;
+            return true;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> selected = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                selected.add(arg);
+            }
+        }
+
+        int books = Integer.parseInt(options.getOrDefault("books", "10000"));
+        int members = Integer.parseInt(options.getOrDefault("members", "5000"));
+        int loans = Integer.parseInt(options.getOrDefault("loans", "20000"));
+        double overdue = Double.parseDouble(options.getOrDefault("overdue", "0.3"));
+        new DataSeeder(books, members, loans, overdue).seed();
+
+        ServiceBenchmark benchmark = new ServiceBenchmark(
+                Long.parseLong(options.getOrDefault("warmup", "5")) * 1000,
+                Long.parseLong(options.getOrDefault("measure", "10")) * 1000);
+        benchmark.run(selected.isEmpty() ? List.copyOf(benchmark.benchmarks.keySet()) : selected);
+    }
+
+    public void run(List<String> names) throws Exception {
+        loadFixture();
+        System.out.printf("%-18s %10s %10s %10s %10s %10s %10s %10s %12s %8s %8s%n",
+                "Benchmark", "ops", "ops/s", "avg(us)", "p50(us)", "p99(us)", "p999(us)", "max(us)",
+                "alloc(B/op)", "gc", "gc(ms)");
+        for (String name : names) {
+            Operation operation = benchmarks.get(name);
+            if (operation == null) {
+                System.err.println("Unknown benchmark: " + name + " (available: " + benchmarks.keySet() + ")");
+                continue;
+            }
+            runOne(name, operation);
+        }
+        System.out.println("Connection pool: " + DatabaseConnection.getPool().stats());
+        System.out.println("Book cache: " + BookCache.shared().stats() + " (checksum " + sink + ")");
+    }
+
+    private void loadFixture() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT MAX(BookID) FROM books");
+            rs.next();
+            bookCount = rs.getInt(1);
+            rs = stmt.executeQuery("SELECT MAX(MemberID) FROM member");
+            rs.next();
+            memberCount = rs.getInt(1);
+            rs = stmt.executeQuery("SELECT TransactionID FROM transactions WHERE Status = 'ISSUED'");
+            while (rs.next()) {
+                openLoans.add(rs.getInt(1));
+            }
+        }
+    }
+
+    private void runOne(String name, Operation operation) throws Exception {
+        long warmupEnd = System.nanoTime() + warmupMillis * 1_000_000L;
+        int iteration = 0;
+        while (System.nanoTime() < warmupEnd && operation.run(iteration++)) {
+            // warming up
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        long[] samples = new long[1024];
+        int ops = 0;
+        long start = System.nanoTime();
+        long end = start + measureMillis * 1_000_000L;
+        long now = start;
+        while (now < end) {
+            if (!operation.run(iteration++)) {
+                break;
+            }
+            long after = System.nanoTime();
+            if (ops < MAX_SAMPLES) {
+                if (ops == samples.length) {
+                    samples = Arrays.copyOf(samples, Math.min(samples.length * 2, MAX_SAMPLES));
+                }
+                samples[ops] = after - now;
+            }
+            ops++;
+            now = after;
+        }
+        long elapsed = now - start;
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long recorded = Math.min(ops, MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(samples, (int) recorded);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+
+        System.out.printf("%-18s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %12d %8d %8d%n",
+                name, ops, ops / (elapsed / 1e9), micros(total / Math.max(recorded, 1)),
+                micros(percentile(sorted, 0.50)), micros(percentile(sorted, 0.99)),
+                micros(percentile(sorted, 0.999)), micros(sorted.length == 0 ? 0 : sorted[sorted.length - 1]),
+                ops == 0 ? 0 : allocated / ops, gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+}
@@ -0,0 +1,109 @@
+package com.gui;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * What differs between the databases the library runs on. The service SQL itself is
+ * written once: dates are passed in rather than taken from {@code CURDATE()}, fines are
+ * worked out in Java, and the H2 backend runs in MySQL mode, so what is left here is how
+ * each driver is loaded and asked to stream, the one date function they spell differently,
+ * and how schema migrations are serialized.
+ */
+public enum SqlDialect {
+
+    MYSQL("com.mysql.cj.jdbc.Driver") {
+        /** Connector/J buffers the whole result unless asked for its row-by-row mode or useCursorFetch is set. */
+        @Override
+        public int streamingFetchSize(String url, int fetchSize) {
+            return url != null && url.contains("useCursorFetch=true") ? fetchSize : Integer.MIN_VALUE;
+        }
+
+        @Override
+        public String daysBetween(String from, String to) {
+            return "DATEDIFF(" + to + ", " + from + ")";
+        }
+
+        /** A named lock belongs to the session, so unlike a row lock it survives the commit each DDL statement makes. */
+        @Override
+        public boolean lockSchema(Connection conn, int timeoutSeconds) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                ResultSet rs = stmt.executeQuery("SELECT GET_LOCK('library_schema', " + timeoutSeconds + ")");
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+
+        @Override
+        public void unlockSchema(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeQuery("SELECT RELEASE_LOCK('library_schema')").close();
+            }
+        }
+    },
+
+    H2("org.h2.Driver") {
+        @Override
+        public String daysBetween(String from, String to) {
+            return "DATEDIFF('DAY', " + from + ", " + to + ")";
+        }
+
+        /** The embedded database file admits one process, so only threads of this JVM can race. */
+        @Override
+        public boolean lockSchema(Connection conn, int timeoutSeconds) throws SQLException {
+            try {
+                return EMBEDDED_SCHEMA_LOCK.tryLock(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the schema lock", e);
+            }
+        }
+
+        @Override
+        public void unlockSchema(Connection conn) {
+            EMBEDDED_SCHEMA_LOCK.unlock();
+        }
+    };
+
+    private static final ReentrantLock EMBEDDED_SCHEMA_LOCK = new ReentrantLock();
+
+    private final String driverClass;
+
+    SqlDialect(String driverClass) {
+        this.driverClass = driverClass;
+    }
+
+    public String driverClass() {
+        return driverClass;
+    }
+
+    /** Fetch size that makes a forward-only query on {@code url} stream rows instead of buffering them. */
+    public int streamingFetchSize(String url, int fetchSize) {
+        return fetchSize;
+    }
+
+    /** SQL for the number of days from date expression {@code from} to {@code to}; negative when {@code to} is earlier. */
+    public abstract String daysBetween(String from, String to);
+
+    /**
+     * Takes the database-wide lock that lets one desk at a time migrate the schema, waiting
+     * up to {@code timeoutSeconds}. Returns false if it is still held by someone else.
+     */
+    public abstract boolean lockSchema(Connection conn, int timeoutSeconds) throws SQLException;
+
+    /** Releases the lock taken by {@link #lockSchema}, on the same connection and thread. */
+    public abstract void unlockSchema(Connection conn) throws SQLException;
+
+    /** A date literal both databases accept. */
+    public String date(LocalDate date) {
+        return "DATE '" + date + "'";
+    }
+
+    public static SqlDialect forUrl(String url) {
+        return url.startsWith("jdbc:h2:") ? H2 : MYSQL;
+    }
+}
@@ -0,0 +1,186 @@
+package com.gui;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps the statements handed out by pooled connections so every execution is timed
+ * under a name like {@code issueBook: UPDATE books}, and rows returned or changed are
+ * counted against both the statement and the service call that ran it. Only the
+ * execute calls go through the proxy's timing; result sets are wrapped in a
+ * {@link CountingResultSet}, which calls the driver directly.
+ */
+final class StatementMetrics {
+
+    private static final Pattern TABLE = Pattern.compile(
+            "\\b(?:FROM|INTO|UPDATE|TABLE|ON)\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?`?(\\w+)", Pattern.CASE_INSENSITIVE);
+    // SQL text -> label; capped, since statements built with literals would make every text new
+    private static final int MAX_LABELS = 2_048;
+    private static final Map<String, String> LABELS = new ConcurrentHashMap<>();
+
+    // The statement the event dispatch thread is waiting on, for the stall watchdog
+    private static volatile Thread watchedThread;
+    private static volatile String watchedSql;
+
+    private StatementMetrics() {
+    }
+
+    /** Returns a proxy for {@code statement}; {@code sql} is null for plain statements. */
+    static Statement wrap(Statement statement, Class<?> type, String sql) {
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    static void watchThread(Thread thread) {
+        watchedThread = thread;
+        watchedSql = null;
+    }
+
+    /** SQL that {@code thread} is executing right now, if it is the watched thread; otherwise null. */
+    static String activeSql(Thread thread) {
+        return thread != null && thread == watchedThread ? watchedSql : null;
+    }
+
+    /** Verb and first table of a statement, e.g. {@code SELECT transactions}. */
+    static String label(String sql) {
+        String label = LABELS.get(sql);
+        if (label == null) {
+            label = parseLabel(sql);
+            if (LABELS.size() < MAX_LABELS) {
+                LABELS.putIfAbsent(sql, label);
+            }
+        }
+        return label;
+    }
+
+    private static String parseLabel(String sql) {
+        String trimmed = sql.strip();
+        int space = trimmed.indexOf(' ');
+        String verb = (space < 0 ? trimmed : trimmed.substring(0, space)).toUpperCase();
+        Matcher table = TABLE.matcher(trimmed);
+        return table.find() ? verb + " " + table.group(1) : verb;
+    }
+
+    private static Metrics.Operation operationFor(String sql) {
+        Metrics.Operation caller = Metrics.current();
+        String label = sql == null ? "SQL" : label(sql);
+        return Metrics.shared().operation(caller == null ? "sql: " + label : caller.name() + ": " + label);
+    }
+
+    private static void rowsWritten(Metrics.Operation operation, long rows) {
+        if (rows <= 0) {
+            return;
+        }
+        operation.addRowsWritten(rows);
+        Metrics.Operation caller = Metrics.current();
+        if (caller != null) {
+            caller.addRowsWritten(rows);
+        }
+    }
+
+    private static long sum(Object updateCounts) {
+        long rows = 0;
+        if (updateCounts instanceof int[] counts) {
+            for (int count : counts) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        } else if (updateCounts instanceof long[] counts) {
+            for (long count : counts) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement raw;
+        private final String sql;
+        private Metrics.Operation lastOperation;
+        private CountingResultSet lastResultSet;
+
+        StatementHandler(Statement raw, String sql) {
+            this.raw = raw;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                // Closing a statement closes its result set without going through it
+                flushResultSet();
+                return call(method, args);
+            }
+            if (!name.startsWith("execute") && !name.equals("getResultSet")) {
+                return call(method, args);
+            }
+            flushResultSet();
+            if (name.equals("getResultSet")) {
+                ResultSet rs = (ResultSet) call(method, args);
+                return rs == null || lastOperation == null ? rs : wrapResultSet(rs, lastOperation);
+            }
+
+            String text = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+            Metrics.Operation operation = operationFor(text);
+            lastOperation = operation;
+            boolean watched = Thread.currentThread() == watchedThread;
+            if (watched) {
+                watchedSql = text;
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(method, args);
+            } catch (SQLException | RuntimeException e) {
+                operation.recordError();
+                throw e;
+            } finally {
+                operation.record(System.nanoTime() - start);
+                if (watched) {
+                    watchedSql = null;
+                }
+            }
+
+            if (result instanceof ResultSet rs) {
+                return wrapResultSet(rs, operation);
+            }
+            if (result instanceof Integer count) {
+                rowsWritten(operation, count);
+            } else if (result instanceof Long count) {
+                rowsWritten(operation, count);
+            } else if (name.startsWith("executeBatch") || name.startsWith("executeLargeBatch")) {
+                rowsWritten(operation, sum(result));
+            }
+            return result;
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs, Metrics.Operation operation) {
+            lastResultSet = new CountingResultSet(rs, operation, Metrics.current());
+            return lastResultSet;
+        }
+
+        private void flushResultSet() {
+            if (lastResultSet != null) {
+                lastResultSet.flush();
+                lastResultSet = null;
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
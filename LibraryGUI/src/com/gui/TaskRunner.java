@@ -0,0 +1,160 @@
+package com.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs service calls on virtual threads instead of the Swing event dispatch thread.
+ * Results and errors are handed back on the EDT. A task submitted under a key that is
+ * already running is dropped, so repeated clicks on the same action do not pile up.
+ * Only read-only loads, submitted with {@link #load}, can be cancelled: interrupting a
+ * write blocked in JDBC closes its connection and leaves its outcome unknown.
+ */
+public class TaskRunner {
+
+    private static final TaskRunner SHARED = new TaskRunner();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, RunningTask> running = new ConcurrentHashMap<>();
+    private final List<Consumer<List<String>>> activityListeners = new CopyOnWriteArrayList<>();
+
+    public static TaskRunner shared() {
+        return SHARED;
+    }
+
+    /** Runs {@code work} in the background and passes its result to {@code onSuccess} on the EDT. */
+    public <T> boolean submit(String key, String description, Callable<T> work, Consumer<T> onSuccess) {
+        return submit(key, description, work, onSuccess, TaskRunner::showError);
+    }
+
+    public <T> boolean submit(String key, String description, Callable<T> work,
+                              Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return submit(key, description, work, onSuccess, onError, false);
+    }
+
+    /** Like {@link #submit(String, String, Callable, Consumer)} for a read-only load that {@link #cancelAll()} may interrupt. */
+    public <T> boolean load(String key, String description, Callable<T> work, Consumer<T> onSuccess) {
+        return submit(key, description, work, onSuccess, TaskRunner::showError, true);
+    }
+
+    private <T> boolean submit(String key, String description, Callable<T> work,
+                               Consumer<T> onSuccess, Consumer<Exception> onError, boolean cancellable) {
+        RunningTask task = new RunningTask(description, cancellable);
+        if (running.putIfAbsent(key, task) != null) {
+            return false;
+        }
+        fireActivity();
+
+        task.future = executor.submit(() -> {
+            try {
+                T result = work.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (!task.cancelled.get()) {
+                        onSuccess.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                if (!task.cancelled.get()) {
+                    SwingUtilities.invokeLater(() -> onError.accept(e));
+                }
+            } finally {
+                running.remove(key, task);
+                fireActivity();
+            }
+        });
+        return true;
+    }
+
+    /** Runs {@code work} in the background without a result callback. */
+    public boolean submit(String key, String description, Runnable work) {
+        return submit(key, description, () -> {
+            work.run();
+            return null;
+        }, result -> { });
+    }
+
+    public boolean isRunning(String key) {
+        return running.containsKey(key);
+    }
+
+    /** Interrupts every running load; their results and errors are discarded. Writes run to completion. */
+    public void cancelAll() {
+        for (RunningTask task : running.values()) {
+            if (task.cancellable) {
+                task.cancel();
+            }
+        }
+    }
+
+    /** Whether any running task is a load that {@link #cancelAll()} would interrupt. */
+    public boolean hasCancellableTasks() {
+        for (RunningTask task : running.values()) {
+            if (task.cancellable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Registers a listener told, on the EDT, the descriptions of the tasks currently running. */
+    public void addActivityListener(Consumer<List<String>> listener) {
+        activityListeners.add(listener);
+    }
+
+    private void fireActivity() {
+        SwingUtilities.invokeLater(() -> {
+            List<String> descriptions = new ArrayList<>();
+            for (RunningTask task : running.values()) {
+                descriptions.add(task.description);
+            }
+            for (Consumer<List<String>> listener : activityListeners) {
+                listener.accept(descriptions);
+            }
+        });
+    }
+
+    /** Shows why a task failed, as every task here does; call on the EDT. */
+    static void showError(Exception e) {
+        if (e instanceof CancellationException || e instanceof InterruptedException) {
+            return;
+        }
+        if (e instanceof LibraryException le && le.reason() != LibraryException.Reason.DATABASE) {
+            JOptionPane.showMessageDialog(null, le.getMessage(), "Validation Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        e.printStackTrace();
+    }
+
+    private static final class RunningTask {
+        private final String description;
+        private final boolean cancellable;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        RunningTask(String description, boolean cancellable) {
+            this.description = description;
+            this.cancellable = cancellable;
+        }
+
+        void cancel() {
+            cancelled.set(true);
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+    }
+}
@@ -1,263 +1,503 @@
-package com.gui;
-
-import java.sql.*;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-
-public class TransactionService {
-
-    private static final int FINE_PER_DAY = 5;
-    private final BookService bookService = new BookService();
-    private final MemberService memberService = new MemberService();
-
-    public void displayTransactions() {
-    	updateFine();
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            String sql = """
-                SELECT t.TransactionID, m.Name as MemberName, b.Title as BookTitle, 
-                       t.IssueDate, t.DueDate, t.ReturnDate, t.Status, t.Fine, t.DaysOverdue
-                FROM transactions t
-                JOIN member m ON t.MemberID = m.MemberID
-                JOIN books b ON t.BookID = b.BookID
-                ORDER BY t.TransactionID ASC
-            """;
-            
-            ResultSet rs = stmt.executeQuery(sql);
-            JTable table = new JTable(buildTableModel(rs));
-            table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
-            JScrollPane scrollPane = new JScrollPane(table);
-            scrollPane.setPreferredSize(new java.awt.Dimension(800, 400));
-            
-            JOptionPane.showMessageDialog(null, scrollPane, "Transactions List", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-    
-    public void updateFine() {
-        String sql = "SELECT TransactionID, DueDate FROM transactions WHERE ReturnDate IS NULL";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            int finePerDay = 5;
-
-            while (rs.next()) {
-                int id = rs.getInt("TransactionID");
-                Date due = rs.getDate("DueDate");
-                LocalDate dueDate = due.toLocalDate();
-                LocalDate today = LocalDate.now();
-
-                if (dueDate.isBefore(today)) {
-                    int daysOverdue = (int) ChronoUnit.DAYS.between(dueDate, today);
-                    int fine = daysOverdue * finePerDay;
-
-                    String updateQuery = "UPDATE transactions SET Fine = ?, DaysOverdue = ? WHERE TransactionID = ?";
-                    try (PreparedStatement ps = conn.prepareStatement(updateQuery)) {
-                        ps.setInt(1, fine);
-                        ps.setInt(2, daysOverdue);
-                        ps.setInt(3, id);
-                        ps.executeUpdate();
-                    }
-                } else {
-                    // Optional: Clear fine and daysOverdue if no longer overdue
-                    String clearQuery = "UPDATE transactions SET Fine = 0, DaysOverdue = 0 WHERE TransactionID = ?";
-                    try (PreparedStatement ps = conn.prepareStatement(clearQuery)) {
-                        ps.setInt(1, id);
-                        ps.executeUpdate();
-                    }
-                }
-            }
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Error updating fines: " + e.getMessage(), 
-                                          "Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
-    }
-
-
-    public void issueBook(int memberId, int bookId) {
-        // Validate member exists
-        if (!memberService.memberExists(memberId)) {
-            JOptionPane.showMessageDialog(null, "Member ID " + memberId + " does not exist.", 
-                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Validate book exists
-        if (!bookService.bookExists(bookId)) {
-            JOptionPane.showMessageDialog(null, "Book ID " + bookId + " does not exist.", 
-                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Check if book is available
-        if (!bookService.isBookAvailable(bookId)) {
-            JOptionPane.showMessageDialog(null, "Book is not available for issue.", 
-                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        // Check if member already has this book issued
-        if (hasPendingTransaction(memberId, bookId)) {
-            JOptionPane.showMessageDialog(null, "Member already has this book issued.", 
-                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        String sql = "INSERT INTO transactions (MemberID, BookID, IssueDate, DueDate, Status) VALUES (?, ?, ?, ?, 'ISSUED')";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS)) {
-
-            LocalDate today = LocalDate.now();
-            LocalDate dueDate = today.plusDays(14); // 2 weeks
-
-            ps.setInt(1, memberId);
-            ps.setInt(2, bookId);
-            ps.setDate(3, Date.valueOf(today));
-            ps.setDate(4, Date.valueOf(dueDate));
-            ps.executeUpdate();
-
-            // Update book availability
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                int transactionId = rs.getInt(1);
-                bookService.updateBookAvailability(bookId, -1);
-                JOptionPane.showMessageDialog(null, "Book issued successfully.\nTransaction ID = " + transactionId + "\nDue Date: " + dueDate);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    public void returnBook(int transactionId) {
-        // First check if transaction exists and book is not already returned
-        if (!isValidTransaction(transactionId)) {
-            JOptionPane.showMessageDialog(null, "Invalid transaction ID or book already returned.", 
-                                        "Validation Error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        String query = "SELECT DueDate, BookID FROM transactions WHERE TransactionID = ? AND Status = 'ISSUED'";
-        String update = "UPDATE transactions SET ReturnDate = ?, Fine = ?, DaysOverdue = ?, Status = 'RETURNED' WHERE TransactionID = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement select = conn.prepareStatement(query);
-             PreparedStatement updateStmt = conn.prepareStatement(update)) {
-
-            select.setInt(1, transactionId);
-            ResultSet rs = select.executeQuery();
-
-            if (rs.next()) {
-                LocalDate dueDate = rs.getDate("DueDate").toLocalDate();
-                int bookId = rs.getInt("BookID");
-                LocalDate returnDate = LocalDate.now();
-                long daysOverdue = ChronoUnit.DAYS.between(dueDate, returnDate);
-                int fine = (int) Math.max(daysOverdue, 0) * FINE_PER_DAY;
-
-                updateStmt.setDate(1, Date.valueOf(returnDate));
-                updateStmt.setString(2, String.valueOf(fine)); // Fine is VARCHAR in schema
-                updateStmt.setString(3, String.valueOf(Math.max(daysOverdue, 0))); // DaysOverdue is VARCHAR
-                updateStmt.setInt(4, transactionId);
-                updateStmt.executeUpdate();
-
-                // Update book availability
-                bookService.updateBookAvailability(bookId, 1);
-
-                String message = "Book returned successfully.";
-                if (fine > 0) {
-                    message += "\nFine: ₹" + fine + " (" + daysOverdue + " days overdue)";
-                } else {
-                    message += "\nNo fine (returned on time)";
-                }
-                
-                JOptionPane.showMessageDialog(null, message);
-            }
-
-        } catch (Exception e) {
-            showError(e);
-        }
-    }
-
-    private boolean hasPendingTransaction(int memberId, int bookId) {
-        String sql = "SELECT COUNT(*) FROM transactions WHERE MemberID = ? AND BookID = ? AND Status = 'ISSUED'";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, memberId);
-            ps.setInt(2, bookId);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    private boolean isValidTransaction(int transactionId) {
-        String sql = "SELECT COUNT(*) FROM transactions WHERE TransactionID = ? AND Status = 'ISSUED'";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, transactionId);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
-
-        } catch (Exception e) {
-            showError(e);
-            return false;
-        }
-    }
-
-    private DefaultTableModel buildTableModel(ResultSet rs) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
-        int columnCount = meta.getColumnCount();
-        DefaultTableModel model = new DefaultTableModel();
-
-        for (int i = 1; i <= columnCount; i++) {
-            model.addColumn(meta.getColumnName(i));
-        }
-
-        while (rs.next()) {
-            Object[] row = new Object[columnCount];
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = meta.getColumnName(i);
-
-                if ("Fine".equalsIgnoreCase(columnName)) {
-                    double fineValue = rs.getDouble(i);
-                    row[i - 1] = String.format("$%.2f", fineValue);  // ✅ Add $ symbol
-                } else if ("DaysOverdue".equalsIgnoreCase(columnName)) {
-                    int days = rs.getInt(i);
-                    row[i - 1] = days + (days > 0 ? " days" : "");   // Optional: format
-                } else {
-                    row[i - 1] = rs.getObject(i); // Default
-                }
-            }
-            model.addRow(row);
-        }
-        return model;
-    }
-
-
-    private void showError(Exception e) {
-        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        e.printStackTrace();
-    }
-}
\ No newline at end of file
+package com.gui;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Issues and returns. Each call runs in its own database transaction,
+ * so one instance can serve many threads at once. Expected outcomes such as "no copy
+ * left" come back as a {@link CirculationStatus}; failures are thrown as {@link LibraryException}.
+ * <p>
+ * A loan's Fine and DaysOverdue are written once, when it is returned. While it is open
+ * they are NULL and whatever it owes is worked out from its DueDate by {@link FineEngine}.
+ */
+public class TransactionService {
+
+    private static final int LOAN_DAYS = 14; // 2 weeks
+    private static final int MAX_BATCH_ITEMS = 100;
+    private static final Metrics.Operation ISSUE_BOOK = Metrics.shared().operation("issueBook");
+    private static final Metrics.Operation ISSUE_BOOKS = Metrics.shared().operation("issueBooks");
+    private static final Metrics.Operation RETURN_BOOK = Metrics.shared().operation("returnBook");
+    private static final Metrics.Operation RETURN_BOOKS = Metrics.shared().operation("returnBooks");
+    private final BookCache bookCache = BookCache.shared();
+    private final LibraryStats stats = LibraryStats.shared();
+
+    /**
+     * The transaction list. Open loans store no Fine or DaysOverdue, so both columns work them
+     * out in SQL from DueDate as of the day the list is opened, which keeps sorting by them
+     * consistent with what is shown. A fine policy with no SQL form is applied to each page
+     * as it is read instead, and the Fine column is then not sortable.
+     */
+    public PagedTableModel createTransactionsModel() {
+        LocalDate today = LocalDate.now();
+        SqlDialect dialect = DatabaseConnection.dialect();
+        String openDays = "GREATEST(" + dialect.daysBetween("t.DueDate", dialect.date(today)) + ", 0)";
+        String openFine = FineEngine.shared().sql(openDays);
+        PagedTableModel.Column fine = openFine != null
+            ? new PagedTableModel.Column("Fine", "CASE WHEN t.Status = 'ISSUED' THEN " + openFine + " ELSE t.Fine END",
+                    TransactionService::formatFine)
+            : new PagedTableModel.Column("Fine", "t.Fine", TransactionService::formatFine, false);
+
+        PagedTableModel model = new PagedTableModel("""
+                transactions t
+                JOIN member m ON t.MemberID = m.MemberID
+                JOIN books b ON t.BookID = b.BookID
+            """, "t.TransactionID",
+            new PagedTableModel.Column("TransactionID", "t.TransactionID"),
+            new PagedTableModel.Column("MemberName", "m.Name"),
+            new PagedTableModel.Column("BookTitle", "b.Title"),
+            new PagedTableModel.Column("IssueDate", "t.IssueDate"),
+            new PagedTableModel.Column("DueDate", "t.DueDate"),
+            new PagedTableModel.Column("ReturnDate", "t.ReturnDate"),
+            new PagedTableModel.Column("Status", "t.Status"),
+            fine,
+            new PagedTableModel.Column("DaysOverdue", "CASE WHEN t.Status = 'ISSUED' THEN " + openDays + " ELSE t.DaysOverdue END",
+                    TransactionService::formatDaysOverdue));
+        return openFine != null ? model : model.mapRows(TransactionService::assessOpenLoans);
+    }
+
+    private static final int STATUS = 6;
+    private static final int FINE = 7;
+    private static final int DAYS_OVERDUE = 8;
+
+    /** Fills in the fine of each open loan from the days overdue the query worked out. */
+    private static void assessOpenLoans(Object[][] rows) {
+        FineEngine fines = FineEngine.shared();
+        for (Object[] row : rows) {
+            if ("ISSUED".equals(row[STATUS]) && row[DAYS_OVERDUE] instanceof Number days) {
+                row[FINE] = fines.assess(days.longValue()).fine();
+            }
+        }
+    }
+
+    private static Object formatFine(Object value) {
+        double fine = value instanceof Number number ? number.doubleValue() : 0;
+        return String.format("$%.2f", fine);
+    }
+
+    private static Object formatDaysOverdue(Object value) {
+        long days = value instanceof Number number ? number.longValue() : 0;
+        return days + (days > 0 ? " days" : "");
+    }
+
+    /** Issues a copy in one transaction; the returned status says why nothing was issued. */
+    public IssueResult issueBook(int memberId, int bookId) {
+        String insert = "INSERT INTO transactions (MemberID, BookID, IssueDate, DueDate, Status) VALUES (?, ?, ?, ?, 'ISSUED')";
+        LocalDate today = LocalDate.now();
+        LocalDate dueDate = today.plusDays(LOAN_DAYS);
+
+        Metrics.Timer timer = ISSUE_BOOK.start();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // Take the copy first: the guarded update is what serializes competing desks
+            CirculationStatus status = reserveCopy(conn, memberId, bookId);
+            if (status != CirculationStatus.OK) {
+                conn.rollback();
+                return new IssueResult(status, 0, null);
+            }
+
+            int transactionId;
+            try (PreparedStatement ps = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setInt(1, memberId);
+                ps.setInt(2, bookId);
+                ps.setDate(3, Date.valueOf(today));
+                ps.setDate(4, Date.valueOf(dueDate));
+                ps.executeUpdate();
+                ResultSet rs = ps.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("No transaction ID generated for issue");
+                }
+                transactionId = rs.getInt(1);
+            }
+            conn.commit();
+            bookCache.adjustAvailable(bookId, -1);
+            stats.loansIssued(1);
+            return new IssueResult(CirculationStatus.OK, transactionId, dueDate);
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("issue book " + bookId + " to member " + memberId, e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /** Closes an open loan and restocks its copy in one transaction. */
+    public ReturnResult returnBook(int transactionId) {
+        String query = "SELECT DueDate, BookID FROM transactions WHERE TransactionID = ? AND Status = 'ISSUED' FOR UPDATE";
+        String update = "UPDATE transactions SET ReturnDate = ?, Fine = ?, DaysOverdue = ?, Status = 'RETURNED' WHERE TransactionID = ? AND Status = 'ISSUED'";
+        String restock = "UPDATE books SET Available = Available + 1 WHERE BookID = ? AND Available < Total";
+
+        Metrics.Timer timer = RETURN_BOOK.start();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            LocalDate dueDate;
+            int bookId;
+            try (PreparedStatement select = conn.prepareStatement(query)) {
+                select.setInt(1, transactionId);
+                ResultSet rs = select.executeQuery();
+                if (!rs.next()) {
+                    conn.rollback();
+                    return new ReturnResult(CirculationStatus.INVALID_TRANSACTION, 0, 0, 0);
+                }
+                dueDate = rs.getDate("DueDate").toLocalDate();
+                bookId = rs.getInt("BookID");
+            }
+
+            LocalDate returnDate = LocalDate.now();
+            FineEngine.Assessment assessment = FineEngine.shared().assess(dueDate, returnDate);
+            long daysOverdue = assessment.daysOverdue();
+            int fine = assessment.fine();
+            boolean restocked;
+
+            try (PreparedStatement updateStmt = conn.prepareStatement(update);
+                 PreparedStatement restockStmt = conn.prepareStatement(restock)) {
+                updateStmt.setDate(1, Date.valueOf(returnDate));
+                updateStmt.setInt(2, fine);
+                updateStmt.setLong(3, daysOverdue);
+                updateStmt.setInt(4, transactionId);
+                updateStmt.executeUpdate();
+
+                restockStmt.setInt(1, bookId);
+                restocked = restockStmt.executeUpdate() == 1;
+            }
+            conn.commit();
+            if (restocked) {
+                bookCache.adjustAvailable(bookId, 1);
+            }
+            stats.loanReturned(restocked, daysOverdue, fine);
+            return new ReturnResult(CirculationStatus.OK, bookId, daysOverdue, fine);
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("return transaction " + transactionId, e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Issues several books to one member in a single transaction. Every copy is reserved
+     * with one batched guarded update and the loans are inserted with one batched insert.
+     * Books that cannot be issued are reported with their status; the rest are committed
+     * together. Returns an outcome per distinct BookID, in the order given.
+     */
+    public Map<Integer, IssueResult> issueBooks(int memberId, Collection<Integer> bookIds) {
+        List<Integer> books = distinctBatch(bookIds, "book");
+        Map<Integer, IssueResult> results = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        LocalDate dueDate = today.plusDays(LOAN_DAYS);
+
+        Metrics.Timer timer = ISSUE_BOOKS.start();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            if (!memberExists(conn, memberId)) {
+                conn.rollback();
+                for (int bookId : books) {
+                    results.put(bookId, new IssueResult(CirculationStatus.MEMBER_NOT_FOUND, 0, null));
+                }
+                return results;
+            }
+
+            String guarded = """
+                UPDATE books SET Available = Available - 1
+                WHERE BookID = ? AND Available > 0
+                  AND NOT EXISTS (SELECT 1 FROM transactions WHERE MemberID = ? AND BookID = ? AND Status = 'ISSUED')
+            """;
+            // Book rows are locked in BookID order so concurrent batches sharing books cannot deadlock
+            List<Integer> lockOrder = ascending(books);
+            List<Integer> reserved = new ArrayList<>();
+            List<Integer> refused = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(guarded)) {
+                for (int bookId : lockOrder) {
+                    ps.setInt(1, bookId);
+                    ps.setInt(2, memberId);
+                    ps.setInt(3, bookId);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < lockOrder.size(); i++) {
+                    (counts[i] == 1 ? reserved : refused).add(lockOrder.get(i));
+                }
+            }
+            Map<Integer, CirculationStatus> reasons = diagnoseRefusedIssues(conn, memberId, refused);
+
+            String insert = "INSERT INTO transactions (MemberID, BookID, IssueDate, DueDate, Status) VALUES (?, ?, ?, ?, 'ISSUED')";
+            Map<Integer, Integer> transactionIds = new HashMap<>();
+            if (!reserved.isEmpty()) {
+                try (PreparedStatement ps = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int bookId : reserved) {
+                        ps.setInt(1, memberId);
+                        ps.setInt(2, bookId);
+                        ps.setDate(3, Date.valueOf(today));
+                        ps.setDate(4, Date.valueOf(dueDate));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    ResultSet keys = ps.getGeneratedKeys();
+                    for (int bookId : reserved) {
+                        if (!keys.next()) {
+                            throw new SQLException("No transaction ID generated for book " + bookId);
+                        }
+                        transactionIds.put(bookId, keys.getInt(1));
+                    }
+                }
+            }
+            conn.commit();
+            stats.loansIssued(transactionIds.size());
+
+            for (int bookId : books) {
+                Integer transactionId = transactionIds.get(bookId);
+                if (transactionId != null) {
+                    bookCache.adjustAvailable(bookId, -1);
+                    results.put(bookId, new IssueResult(CirculationStatus.OK, transactionId, dueDate));
+                } else {
+                    results.put(bookId, new IssueResult(reasons.get(bookId), 0, null));
+                }
+            }
+            return results;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("issue " + books.size() + " books to member " + memberId, e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Returns several loans in a single transaction: one locking read of the loans, one
+     * locking read of their books, one batched status update and one batched restock per
+     * distinct book. Rows are locked in ascending key order, so concurrent batches that
+     * share loans or books wait for each other instead of deadlocking. Returns an outcome
+     * per distinct TransactionID, in the order given.
+     */
+    public Map<Integer, ReturnResult> returnBooks(Collection<Integer> transactionIds) {
+        List<Integer> loans = distinctBatch(transactionIds, "loan");
+        List<Integer> lockOrder = ascending(loans);
+        Map<Integer, ReturnResult> results = new LinkedHashMap<>();
+        LocalDate returnDate = LocalDate.now();
+
+        String query = "SELECT TransactionID, DueDate, BookID FROM transactions WHERE Status = 'ISSUED' AND TransactionID IN ("
+                + placeholders(lockOrder.size()) + ") ORDER BY TransactionID FOR UPDATE";
+        String update = "UPDATE transactions SET ReturnDate = ?, Fine = ?, DaysOverdue = ?, Status = 'RETURNED' WHERE TransactionID = ? AND Status = 'ISSUED'";
+        String restock = "UPDATE books SET Available = Available + ? WHERE BookID = ?";
+
+        Metrics.Timer timer = RETURN_BOOKS.start();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // TransactionID order, which is also the order the status updates lock in
+            Map<Integer, ReturnResult> open = new TreeMap<>();
+            FineEngine fines = FineEngine.shared();
+            try (PreparedStatement select = conn.prepareStatement(query)) {
+                for (int i = 0; i < lockOrder.size(); i++) {
+                    select.setInt(i + 1, lockOrder.get(i));
+                }
+                ResultSet rs = select.executeQuery();
+                while (rs.next()) {
+                    FineEngine.Assessment assessment = fines.assess(rs.getDate("DueDate").toLocalDate(), returnDate);
+                    open.put(rs.getInt("TransactionID"), new ReturnResult(CirculationStatus.OK, rs.getInt("BookID"),
+                            assessment.daysOverdue(), assessment.fine()));
+                }
+            }
+
+            Map<Integer, Integer> copiesPerBook = new TreeMap<>();
+            for (ReturnResult result : open.values()) {
+                copiesPerBook.merge(result.bookId(), 1, Integer::sum);
+            }
+            // Copies that actually go back on the shelf: never more than Total allows
+            Map<Integer, Integer> restockedPerBook = shelfSpace(conn, copiesPerBook);
+            if (!open.isEmpty()) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(update)) {
+                    for (Map.Entry<Integer, ReturnResult> loan : open.entrySet()) {
+                        ReturnResult result = loan.getValue();
+                        updateStmt.setDate(1, Date.valueOf(returnDate));
+                        updateStmt.setInt(2, result.fine());
+                        updateStmt.setLong(3, result.daysOverdue());
+                        updateStmt.setInt(4, loan.getKey());
+                        updateStmt.addBatch();
+                    }
+                    updateStmt.executeBatch();
+                }
+                try (PreparedStatement restockStmt = conn.prepareStatement(restock)) {
+                    for (Map.Entry<Integer, Integer> book : restockedPerBook.entrySet()) {
+                        if (book.getValue() > 0) {
+                            restockStmt.setInt(1, book.getValue());
+                            restockStmt.setInt(2, book.getKey());
+                            restockStmt.addBatch();
+                        }
+                    }
+                    restockStmt.executeBatch();
+                }
+            }
+            conn.commit();
+
+            for (Map.Entry<Integer, Integer> book : restockedPerBook.entrySet()) {
+                if (book.getValue() > 0) {
+                    bookCache.adjustAvailable(book.getKey(), book.getValue());
+                }
+            }
+            Map<Integer, Integer> restockLeft = new HashMap<>(restockedPerBook);
+            for (ReturnResult result : open.values()) {
+                int left = restockLeft.getOrDefault(result.bookId(), 0);
+                restockLeft.put(result.bookId(), Math.max(left - 1, 0));
+                stats.loanReturned(left > 0, result.daysOverdue(), result.fine());
+            }
+            for (int transactionId : loans) {
+                results.put(transactionId, open.getOrDefault(transactionId,
+                        new ReturnResult(CirculationStatus.INVALID_TRANSACTION, 0, 0, 0)));
+            }
+            return results;
+
+        } catch (SQLException | ClassNotFoundException e) {
+            throw LibraryException.database("return " + loans.size() + " loans", e);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Locks the given books in BookID order and returns, per book, how many of the
+     * returned copies fit under its Total. Books that no longer exist get 0.
+     */
+    private static Map<Integer, Integer> shelfSpace(Connection conn, Map<Integer, Integer> copiesPerBook)
+            throws SQLException {
+        Map<Integer, Integer> restocked = new TreeMap<>();
+        if (copiesPerBook.isEmpty()) {
+            return restocked;
+        }
+        String sql = "SELECT BookID, Available, Total FROM books WHERE BookID IN ("
+                + placeholders(copiesPerBook.size()) + ") ORDER BY BookID FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int bookId : copiesPerBook.keySet()) {
+                ps.setInt(index++, bookId);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                int bookId = rs.getInt("BookID");
+                int space = Math.max(rs.getInt("Total") - rs.getInt("Available"), 0);
+                restocked.put(bookId, Math.min(copiesPerBook.get(bookId), space));
+            }
+        }
+        return restocked;
+    }
+
+    private static List<Integer> ascending(List<Integer> ids) {
+        List<Integer> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static List<Integer> distinctBatch(Collection<Integer> ids, String what) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.isEmpty()) {
+            throw LibraryException.invalid("Enter at least one " + what + ".");
+        }
+        if (distinct.size() > MAX_BATCH_ITEMS) {
+            throw LibraryException.invalid("At most " + MAX_BATCH_ITEMS + " items can be handled at once.");
+        }
+        return distinct;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static boolean memberExists(Connection conn, int memberId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM member WHERE MemberID = ?")) {
+            ps.setInt(1, memberId);
+            return ps.executeQuery().next();
+        }
+    }
+
+    /** Works out why each refused book was not issued, with one query for the whole batch. */
+    private Map<Integer, CirculationStatus> diagnoseRefusedIssues(Connection conn, int memberId, List<Integer> refused)
+            throws SQLException {
+        Map<Integer, CirculationStatus> reasons = new HashMap<>();
+        if (refused.isEmpty()) {
+            return reasons;
+        }
+        String sql = "SELECT b.BookID, b.Available, "
+                + "(SELECT COUNT(*) FROM transactions t WHERE t.MemberID = ? AND t.BookID = b.BookID AND t.Status = 'ISSUED') AS Pending "
+                + "FROM books b WHERE b.BookID IN (" + placeholders(refused.size()) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, memberId);
+            for (int i = 0; i < refused.size(); i++) {
+                ps.setInt(i + 2, refused.get(i));
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                int bookId = rs.getInt("BookID");
+                int available = rs.getInt("Available");
+                bookCache.setAvailable(bookId, available);
+                reasons.put(bookId, rs.getInt("Pending") > 0 ? CirculationStatus.ALREADY_ISSUED : CirculationStatus.NOT_AVAILABLE);
+            }
+        }
+        for (int bookId : refused) {
+            if (reasons.putIfAbsent(bookId, CirculationStatus.BOOK_NOT_FOUND) == null) {
+                bookCache.invalidate(bookId);
+            }
+        }
+        return reasons;
+    }
+
+    /**
+     * Decrements stock only if a copy is left, the member exists and does not already
+     * hold this book. When nothing is updated, a single diagnostic query picks the reason.
+     */
+    private CirculationStatus reserveCopy(Connection conn, int memberId, int bookId) throws SQLException {
+        String guarded = """
+            UPDATE books SET Available = Available - 1
+            WHERE BookID = ? AND Available > 0
+              AND EXISTS (SELECT 1 FROM member WHERE MemberID = ?)
+              AND NOT EXISTS (SELECT 1 FROM transactions WHERE MemberID = ? AND BookID = ? AND Status = 'ISSUED')
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(guarded)) {
+            ps.setInt(1, bookId);
+            ps.setInt(2, memberId);
+            ps.setInt(3, memberId);
+            ps.setInt(4, bookId);
+            if (ps.executeUpdate() == 1) {
+                return CirculationStatus.OK;
+            }
+        }
+
+        String diagnose = """
+            SELECT (SELECT COUNT(*) FROM member WHERE MemberID = ?) AS MemberCount,
+                   (SELECT Available FROM books WHERE BookID = ?) AS Available,
+                   (SELECT COUNT(*) FROM transactions WHERE MemberID = ? AND BookID = ? AND Status = 'ISSUED') AS Pending
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(diagnose)) {
+            ps.setInt(1, memberId);
+            ps.setInt(2, bookId);
+            ps.setInt(3, memberId);
+            ps.setInt(4, bookId);
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+            if (rs.getInt("MemberCount") == 0) {
+                return CirculationStatus.MEMBER_NOT_FOUND;
+            }
+            int available = rs.getInt("Available");
+            if (rs.wasNull()) {
+                bookCache.invalidate(bookId);
+                return CirculationStatus.BOOK_NOT_FOUND;
+            }
+            bookCache.setAvailable(bookId, available);
+            if (available <= 0) {
+                return CirculationStatus.NOT_AVAILABLE;
+            }
+            return CirculationStatus.ALREADY_ISSUED;
+        }
+    }
+}